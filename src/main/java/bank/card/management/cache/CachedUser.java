@@ -0,0 +1,9 @@
+package bank.card.management.cache;
+
+import bank.card.management.entity.UserStatus;
+
+import java.util.List;
+
+// Неизменяемый снимок пользователя: только то, что нужно для авторизации и запросов по user_id
+public record CachedUser(Long id, String username, UserStatus status, List<String> authorities) {
+}
@@ -0,0 +1,84 @@
+package bank.card.management.cache;
+
+import bank.card.management.entity.User;
+import bank.card.management.repository.UserRepository;
+import bank.card.management.util.RoleConstants;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+@Component
+public class UserCache {
+    
+    private static final String CACHE_NAME = "users";
+    
+    private final UserRepository userRepository;
+    private final Cache<String, CachedUser> cache;
+    
+    public UserCache(UserRepository userRepository,
+                     MeterRegistry meterRegistry,
+                     @Value("${user-cache.ttl:30s}") Duration ttl,
+                     @Value("${user-cache.maximum-size:10000}") long maximumSize) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        
+        // cache.gets{result=hit|miss}, cache.evictions и т.д.
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        // Каждое попадание в кэш — это несостоявшийся запрос findByUsername с join-ом ролей
+        FunctionCounter.builder("user.cache.queries.saved", cache, c -> c.stats().hitCount())
+                .description("findByUsername queries avoided by the user cache")
+                .register(meterRegistry);
+    }
+    
+    public CachedUser get(String username) {
+        CachedUser user = cache.get(username, this::load);
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
+        return user;
+    }
+    
+    // Внутри транзакции запись удаляется только после commit: до него параллельный запрос всё равно
+    // закэшировал бы старое состояние из БД, а при откате изменение не состоялось
+    public void evict(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(username);
+                }
+            });
+            return;
+        }
+        cache.invalidate(username);
+    }
+    
+    private CachedUser load(String username) {
+        return userRepository.findByUsername(username)
+                .map(UserCache::toCachedUser)
+                .orElse(null);
+    }
+    
+    private static CachedUser toCachedUser(User user) {
+        return new CachedUser(
+                user.getId(),
+                user.getUsername(),
+                user.getStatus(),
+                user.getRoles().stream()
+                        .map(role -> RoleConstants.ROLE_PREFIX + role.getName().name())
+                        .toList());
+    }
+}
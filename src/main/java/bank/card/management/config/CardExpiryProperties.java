@@ -0,0 +1,16 @@
+package bank.card.management.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "card-expiry")
+public class CardExpiryProperties {
+    
+    private boolean enabled = false;
+    
+    // Максимум строк в одном UPDATE: каждый чанк — отдельная короткая транзакция
+    private int batchSize = 1000;
+}
@@ -0,0 +1,20 @@
+package bank.card.management.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "card-import")
+public class CardImportProperties {
+    
+    // Строк в одном INSERT ... SELECT FROM unnest(...): один round trip и одна транзакция на чанк
+    private int chunkSize = 5000;
+    
+    // Потоки проверки и шифрования; 0 — по числу процессоров
+    private int workers = 0;
+    
+    // Ограничивает размер ответа при загрузке файла, целиком состоящего из ошибок
+    private int maxReportedErrors = 1000;
+}
@@ -0,0 +1,55 @@
+package bank.card.management.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "encryption")
+public class EncryptionProperties {
+    
+    // Ключ данных в прежнем формате (AES/ECB без заголовка версии); если key-ring пуст, он же становится версией 1
+    private String secret = "bank-card-secret-key-2024-minimum-32-characters";
+    
+    // Версия ключа, которой шифруются новые данные
+    private int activeKeyVersion = 1;
+    
+    // Версия → секрет. Старые версии остаются в кольце, пока re-encryption не перешифрует все строки
+    private Map<Integer, String> keyRing = new HashMap<>();
+    
+    // Отдельный ключ HMAC для card_number_hash: не ротируется вместе с key-ring, иначе индекс придётся пересчитывать
+    private String blindIndexKey = "bank-card-blind-index-key-2024-minimum-32-characters";
+    
+    private final Reencryption reencryption = new Reencryption();
+    
+    private final BlindIndexBackfill blindIndexBackfill = new BlindIndexBackfill();
+    
+    private final BinaryMigration binaryMigration = new BinaryMigration();
+    
+    @Getter
+    @Setter
+    public static class Reencryption {
+        private boolean enabled = false;
+        private int batchSize = 500;
+        // Ограничение скорости, чтобы фоновое перешифрование не вытесняло рабочую нагрузку
+        private int maxRowsPerSecond = 2000;
+    }
+    
+    @Getter
+    @Setter
+    public static class BlindIndexBackfill {
+        private boolean enabled = false;
+        private int batchSize = 500;
+    }
+    
+    @Getter
+    @Setter
+    public static class BinaryMigration {
+        private boolean enabled = false;
+        private int batchSize = 500;
+    }
+}
@@ -50,7 +50,8 @@ public class SecurityConfig {
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html", 
                                  "/swagger-ui/index.html", "/swagger-resources/**", 
                                  "/webjars/**", "/configuration/**").permitAll()
-                .requestMatchers("/api/admin/**").hasRole(RoleConstants.ADMIN)
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/api/admin/**", "/actuator/**").hasRole(RoleConstants.ADMIN)
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
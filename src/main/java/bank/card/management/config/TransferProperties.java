@@ -0,0 +1,34 @@
+package bank.card.management.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "transfer")
+public class TransferProperties {
+    
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.ATOMIC;
+    
+    private final Retry retry = new Retry();
+    
+    public enum ConcurrencyMode {
+        // Условные UPDATE без чтения сущностей
+        ATOMIC,
+        // SELECT ... FOR UPDATE в порядке возрастания id
+        PESSIMISTIC,
+        // Проверка @Version при flush с повтором транзакции
+        OPTIMISTIC
+    }
+    
+    @Getter
+    @Setter
+    public static class Retry {
+        private int maxAttempts = 5;
+        private Duration initialBackoff = Duration.ofMillis(10);
+        private Duration maxBackoff = Duration.ofMillis(200);
+    }
+}
@@ -1,22 +1,37 @@
 package bank.card.management.controller;
 
+import bank.card.management.dto.request.CardLookupRequest;
 import bank.card.management.dto.request.CreateCardRequest;
 import bank.card.management.dto.response.AdminCardResponse;
+import bank.card.management.dto.response.CardImportResponse;
 import bank.card.management.dto.response.CardResponse;
+import bank.card.management.dto.response.CursorPageResponse;
 import bank.card.management.dto.response.UserResponse;
+import bank.card.management.service.CardExportService;
+import bank.card.management.service.CardFileFormat;
+import bank.card.management.service.CardImportService;
 import bank.card.management.service.CardService;
 import bank.card.management.service.UserService;
 import bank.card.management.util.PageRequestHelper;
 import bank.card.management.util.RoleConstants;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -27,6 +42,8 @@ public class AdminController {
     
     private final CardService cardService;
     private final UserService userService;
+    private final CardExportService cardExportService;
+    private final CardImportService cardImportService;
     
     @PostMapping("/cards")
     @PreAuthorize("hasRole('" + RoleConstants.ADMIN + "')")
@@ -39,16 +56,70 @@ public class AdminController {
     
     @GetMapping("/cards")
     @PreAuthorize("hasRole('" + RoleConstants.ADMIN + "')")
-    public ResponseEntity<Page<AdminCardResponse>> getAllCards(
+    public ResponseEntity<Slice<AdminCardResponse>> getAllCards(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "id") String sortBy) {
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            @RequestParam(defaultValue = "false") boolean approximateTotal) {
         
         Pageable pageable = PageRequestHelper.createPageable(page, size, sortBy);
-        Page<AdminCardResponse> cards = cardService.getAllCards(pageable);
+        Slice<AdminCardResponse> cards;
+        if (approximateTotal) {
+            cards = cardService.getAllCardsWithApproximateTotal(pageable);
+        } else if (withTotal) {
+            cards = cardService.getAllCards(pageable);
+        } else {
+            cards = cardService.getAllCardsSlice(pageable);
+        }
         return ResponseEntity.ok(cards);
     }
     
+    // Короче трёх символов триграммный индекс бесполезен, и поиск свёлся бы к полному сканированию
+    @GetMapping("/cards/search")
+    @PreAuthorize("hasRole('" + RoleConstants.ADMIN + "')")
+    public ResponseEntity<Slice<AdminCardResponse>> searchAllCards(
+            @RequestParam @Size(min = 3, max = 100) String search,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy) {
+        
+        Pageable pageable = PageRequestHelper.createPageable(page, size, sortBy);
+        return ResponseEntity.ok(cardService.searchAllCards(search.trim(), pageable));
+    }
+    
+    @GetMapping("/cards/scroll")
+    @PreAuthorize("hasRole('" + RoleConstants.ADMIN + "')")
+    public ResponseEntity<CursorPageResponse<AdminCardResponse>> scrollAllCards(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(1000) int size,
+            @RequestParam(defaultValue = "id") String sortBy) {
+        return ResponseEntity.ok(cardService.scrollAllCards(sortBy, cursor, size));
+    }
+    
+    // Ответ пишется в отдельном потоке по мере чтения курсора, поэтому объём выгрузки не ограничен памятью
+    @GetMapping("/cards/export")
+    @PreAuthorize("hasRole('" + RoleConstants.ADMIN + "')")
+    public ResponseEntity<StreamingResponseBody> exportCards(
+            @RequestParam(defaultValue = "NDJSON") CardFileFormat format) {
+        StreamingResponseBody body = outputStream -> cardExportService.exportCards(format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cards." + format.getExtension() + "\"")
+                .body(body);
+    }
+    
+    // Тело запроса читается потоком, а не через multipart: файл не сохраняется целиком ни в памяти, ни на диске
+    @PostMapping(value = "/cards/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('" + RoleConstants.ADMIN + "')")
+    public ResponseEntity<CardImportResponse> importCards(HttpServletRequest request,
+                                                          Authentication authentication) throws IOException {
+        CardFileFormat format = CardFileFormat.fromMediaType(MediaType.parseMediaType(request.getContentType()));
+        CardImportResponse response = cardImportService.importCards(format, request.getInputStream(),
+                authentication.getName());
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/cards/{id}")
     @PreAuthorize("hasRole('" + RoleConstants.ADMIN + "')")
     public ResponseEntity<AdminCardResponse> getCard(@PathVariable Long id) {
@@ -56,6 +127,14 @@ public class AdminController {
         return ResponseEntity.ok(card);
     }
     
+    // Номер карты передаётся в теле, а не в URL, чтобы не попадать в журналы доступа
+    @PostMapping("/cards/lookup")
+    @PreAuthorize("hasRole('" + RoleConstants.ADMIN + "')")
+    public ResponseEntity<AdminCardResponse> lookupCard(@Valid @RequestBody CardLookupRequest request) {
+        AdminCardResponse card = cardService.findCardByNumberAdmin(request.getCardNumber());
+        return ResponseEntity.ok(card);
+    }
+    
     @PostMapping("/cards/{id}/activate")
     @PreAuthorize("hasRole('" + RoleConstants.ADMIN + "')")
     public ResponseEntity<AdminCardResponse> activateCard(@PathVariable Long id) {
@@ -80,16 +159,34 @@ public class AdminController {
     // User Management
     @GetMapping("/users")
     @PreAuthorize("hasRole('" + RoleConstants.ADMIN + "')")
-    public ResponseEntity<Page<UserResponse>> getAllUsers(
+    public ResponseEntity<Slice<UserResponse>> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "id") String sortBy) {
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "true") boolean withTotal,
+            @RequestParam(defaultValue = "false") boolean approximateTotal) {
         
         Pageable pageable = PageRequestHelper.createPageable(page, size, sortBy);
-        Page<UserResponse> users = userService.getAllUsers(pageable);
+        Slice<UserResponse> users;
+        if (approximateTotal) {
+            users = userService.getAllUsersWithApproximateTotal(pageable);
+        } else if (withTotal) {
+            users = userService.getAllUsers(pageable);
+        } else {
+            users = userService.getAllUsersSlice(pageable);
+        }
         return ResponseEntity.ok(users);
     }
     
+    @GetMapping("/users/scroll")
+    @PreAuthorize("hasRole('" + RoleConstants.ADMIN + "')")
+    public ResponseEntity<CursorPageResponse<UserResponse>> scrollAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(1000) int size,
+            @RequestParam(defaultValue = "id") String sortBy) {
+        return ResponseEntity.ok(userService.scrollAllUsers(sortBy, cursor, size));
+    }
+    
     @GetMapping("/users/{id}")
     @PreAuthorize("hasRole('" + RoleConstants.ADMIN + "')")
     public ResponseEntity<UserResponse> getUser(@PathVariable Long id) {
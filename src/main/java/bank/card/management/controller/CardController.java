@@ -2,12 +2,15 @@ package bank.card.management.controller;
 
 import bank.card.management.dto.request.CreateCardRequest;
 import bank.card.management.dto.response.CardResponse;
+import bank.card.management.dto.response.CursorPageResponse;
 import bank.card.management.service.CardService;
 import bank.card.management.util.PageRequestHelper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
@@ -30,26 +33,43 @@ public class CardController {
         return ResponseEntity.ok(card);
     }
     
+    // withTotal=false: без count(*), в ответе нет totalElements/totalPages — достаточно для «загрузить ещё»
     @GetMapping("/my")
-    public ResponseEntity<Page<CardResponse>> getMyCards(
+    public ResponseEntity<Slice<CardResponse>> getMyCards(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "true") boolean withTotal,
             Authentication authentication) {
         
         Pageable pageable = PageRequestHelper.createPageable(page, size, sortBy);
+        boolean searching = search != null && !search.trim().isEmpty();
         
-        Page<CardResponse> cards;
-        if (search != null && !search.trim().isEmpty()) {
-            cards = cardService.searchUserCards(authentication.getName(), search, pageable);
+        Slice<CardResponse> cards;
+        if (withTotal) {
+            cards = searching
+                    ? cardService.searchUserCards(authentication.getName(), search, pageable)
+                    : cardService.getUserCards(authentication.getName(), pageable);
         } else {
-            cards = cardService.getUserCards(authentication.getName(), pageable);
+            cards = searching
+                    ? cardService.searchUserCardsSlice(authentication.getName(), search, pageable)
+                    : cardService.getUserCardsSlice(authentication.getName(), pageable);
         }
         
         return ResponseEntity.ok(cards);
     }
     
+    // Постраничный обход без OFFSET: cursor из ответа передаётся в следующий запрос как есть
+    @GetMapping("/my/scroll")
+    public ResponseEntity<CursorPageResponse<CardResponse>> scrollMyCards(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(1000) int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            Authentication authentication) {
+        return ResponseEntity.ok(cardService.scrollUserCards(authentication.getName(), sortBy, cursor, size));
+    }
+    
     @GetMapping("/my/{id}")
     public ResponseEntity<CardResponse> getMyCard(
             @PathVariable Long id,
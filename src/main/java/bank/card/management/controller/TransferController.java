@@ -1,9 +1,12 @@
 package bank.card.management.controller;
 
+import bank.card.management.dto.request.BatchTransferRequest;
 import bank.card.management.dto.request.TransferRequest;
+import bank.card.management.dto.response.BatchTransferResponse;
 import bank.card.management.dto.response.TransferResponse;
 import bank.card.management.service.TransferService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -17,13 +20,25 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class TransferController {
     
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    
     private final TransferService transferService;
     
     @PostMapping
     public ResponseEntity<TransferResponse> transferBetweenCards(
             @Valid @RequestBody TransferRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) @Size(max = 100) String idempotencyKey,
+            Authentication authentication) {
+        TransferResponse response = transferService.transferBetweenOwnCards(
+                request, authentication.getName(), idempotencyKey);
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransferResponse> transferBatch(
+            @Valid @RequestBody BatchTransferRequest request,
             Authentication authentication) {
-        TransferResponse response = transferService.transferBetweenOwnCards(request, authentication.getName());
+        BatchTransferResponse response = transferService.transferBatch(request, authentication.getName());
         return ResponseEntity.ok(response);
     }
 }
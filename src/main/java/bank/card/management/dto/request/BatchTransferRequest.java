@@ -0,0 +1,21 @@
+package bank.card.management.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequest {
+    
+    @NotEmpty(message = "Transfers are required")
+    @Size(max = 1000, message = "Batch must not contain more than 1000 transfers")
+    @Valid
+    private List<TransferRequest> transfers;
+}
@@ -0,0 +1,15 @@
+package bank.card.management.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardLookupRequest {
+    
+    @NotBlank(message = "Card number is required")
+    private String cardNumber;
+}
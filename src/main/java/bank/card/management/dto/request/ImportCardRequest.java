@@ -0,0 +1,35 @@
+package bank.card.management.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Строка файла загрузки карт; userId не указан — карта создаётся на загружающего администратора, как в createCard
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportCardRequest {
+    
+    @NotBlank(message = "Card number is required")
+    private String cardNumber;
+    
+    @NotBlank(message = "Owner name is required")
+    @Size(max = 200, message = "Owner name must not exceed 200 characters")
+    private String owner;
+    
+    @NotNull(message = "Expiry date is required")
+    private LocalDate expiryDate;
+    
+    @NotNull(message = "Initial balance is required")
+    @PositiveOrZero(message = "Balance must be positive or zero")
+    private BigDecimal initialBalance;
+    
+    private Long userId;
+}
@@ -0,0 +1,17 @@
+package bank.card.management.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferItemResponse {
+    private int index;
+    private boolean success;
+    private UUID transactionId;
+    private String message;
+}
@@ -0,0 +1,16 @@
+package bank.card.management.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+    private int succeeded;
+    private int failed;
+    private List<BatchTransferItemResponse> results;
+}
@@ -0,0 +1,14 @@
+package bank.card.management.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardImportErrorResponse {
+    // Номер строки файла, начиная с 1 (у CSV первая строка — заголовок)
+    private long line;
+    private String message;
+}
@@ -0,0 +1,17 @@
+package bank.card.management.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardImportResponse {
+    private long imported;
+    private long failed;
+    // Не больше card-import.max-reported-errors первых ошибок; failed считает все
+    private List<CardImportErrorResponse> errors;
+}
@@ -0,0 +1,18 @@
+package bank.card.management.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    // Передаётся в следующий запрос как cursor; null, если страниц больше нет
+    private String nextCursor;
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.SecondaryRow;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -12,6 +13,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "bank_cards")
+// Баланс хранится в узкой таблице card_balances (changeset 013); у каждой карты есть строка баланса,
+// поэтому соединение внутреннее
+@SecondaryTable(name = "card_balances", pkJoinColumns = @PrimaryKeyJoinColumn(name = "card_id"))
+@SecondaryRow(table = "card_balances", optional = false)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,15 +24,23 @@ import java.time.LocalDateTime;
 public class BankCard {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Шаг последовательности равен allocationSize (changeset 011): id выдаются без INSERT,
+    // поэтому вставки уходят JDBC-пакетами по hibernate.jdbc.batch_size
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bank_cards_id_seq")
+    @SequenceGenerator(name = "bank_cards_id_seq", sequenceName = "bank_cards_id_seq", allocationSize = 50)
     private Long id;
     
-    @Column(nullable = false, unique = true)
-    private String cardNumber;
+    // Шифртекст в двоичном формате EncryptionUtil (changeset 014); прежняя текстовая колонка card_number
+    // не маппится: её строки переносит CardNumberBinaryMigrationJob
+    @Column(name = "card_number_bin")
+    private byte[] cardNumber;
     
     @Column(nullable = false)
     private String cardNumberMasked;
     
+    @Column(unique = true, length = 64)
+    private String cardNumberHash;
+    
     @Column(nullable = false)
     private String owner;
     
@@ -38,34 +51,38 @@ public class BankCard {
     @Enumerated(EnumType.STRING)
     private CardStatus status;
     
-    @Column(nullable = false, precision = 19, scale = 2)
+    // Записывается только при создании карты. Переводы меняют баланс UPDATE-ами card_balances
+    // (BankCardRepository), чтобы dirty checking не переписывал строку bank_cards и её version
+    @Column(table = "card_balances", nullable = false, updatable = false, precision = 19, scale = 2)
     private BigDecimal balance;
     
+    @Column(table = "card_balances", name = "version", insertable = false, updatable = false)
+    private Long balanceVersion;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
     @Column(nullable = false)
     private LocalDateTime updatedAt;
     
+    // Статус EXPIRED выставляет CardExpiryJob одним UPDATE на чанк, а не сущность при случайной записи строки
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
-        if (expiryDate != null && expiryDate.isBefore(LocalDate.now())) {
-            this.status = CardStatus.EXPIRED;
-        }
     }
     
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
-        if (expiryDate != null && expiryDate.isBefore(LocalDate.now()) && status != CardStatus.EXPIRED) {
-            this.status = CardStatus.EXPIRED;
-        }
     }
 }
 
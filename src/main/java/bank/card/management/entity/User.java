@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -12,6 +13,9 @@ import java.util.Set;
 
 @Entity
 @Table(name = "users")
+// Прокси User, инициализируемые в пределах одной сессии (например, card.getUser() в листинге карт),
+// загружаются пачкой одним IN-запросом вместо SELECT на каждую строку
+@BatchSize(size = 100)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,7 +23,8 @@ import java.util.Set;
 public class User {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true)
@@ -41,7 +46,11 @@ public class User {
     @Enumerated(EnumType.STRING)
     private UserStatus status = UserStatus.ACTIVE;
     
+    // Для запросов со страницами EAGER-коллекция грузится отдельным SELECT-ом на каждого пользователя;
+    // @BatchSize собирает роли всей страницы (до 100 пользователей) в один запрос. Fetch join здесь не подходит:
+    // с LIMIT по коллекции Hibernate пагинирует в памяти
     @ManyToMany(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @JoinTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"),
         inverseJoinColumns = @JoinColumn(name = "role_id")
     )
@@ -0,0 +1,8 @@
+package bank.card.management.exception;
+
+public class CardImportException extends BusinessException {
+    
+    public CardImportException(String message) {
+        super(message);
+    }
+}
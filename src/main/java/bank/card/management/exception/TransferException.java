@@ -5,4 +5,8 @@ public class TransferException extends BusinessException {
     public TransferException(String message) {
         super(message);
     }
+    
+    public TransferException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
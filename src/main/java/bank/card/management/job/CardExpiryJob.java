@@ -0,0 +1,97 @@
+package bank.card.management.job;
+
+import bank.card.management.config.CardExpiryProperties;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Ночной перевод просроченных карт в EXPIRED. Границы чанков берутся keyset-запросом по частичному индексу
+// idx_bank_cards_expiry_date_not_expired (changeset 012), поэтому проход читает только новые просроченные карты;
+// каждый диапазон id обновляется отдельной autocommit-транзакцией. Advisory lock держится на одном соединении
+// всё время прохода, так что на нескольких экземплярах приложения работает только один
+@Component
+@RequiredArgsConstructor
+public class CardExpiryJob {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CardExpiryJob.class);
+    
+    private static final String TRY_LOCK = "SELECT pg_try_advisory_lock(hashtext('card-expiry-job'))";
+    
+    private static final String UNLOCK = "SELECT pg_advisory_unlock(hashtext('card-expiry-job'))";
+    
+    private static final String SELECT_CHUNK_END =
+            "SELECT max(id) FROM (SELECT id FROM bank_cards WHERE id > ? AND expiry_date < CURRENT_DATE " +
+            "AND status <> 'EXPIRED' ORDER BY id LIMIT ?) chunk";
+    
+    // Условие повторяется в UPDATE: строку, изменённую после выбора границ, PostgreSQL перепроверит под блокировкой;
+    // version увеличивается, чтобы OPTIMISTIC-переводы, читавшие карту до истечения, не записали её как активную
+    private static final String EXPIRE_CHUNK =
+            "UPDATE bank_cards SET status = 'EXPIRED', updated_at = now(), version = version + 1 " +
+            "WHERE id > ? AND id <= ? AND expiry_date < CURRENT_DATE AND status <> 'EXPIRED'";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final CardExpiryProperties cardExpiryProperties;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    @Scheduled(cron = "${card-expiry.cron:0 5 0 * * *}")
+    public void run() {
+        if (!cardExpiryProperties.isEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Long expired = jdbcTemplate.execute((ConnectionCallback<Long>) this::expireUnderLock);
+            if (expired == null) {
+                logger.debug("Card expiry is already running on another instance");
+            } else if (expired > 0) {
+                logger.info("Marked {} cards as expired", expired);
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    // Соединение с блокировкой только держит её; чанки идут через пул, чтобы каждый коммитился сразу
+    private Long expireUnderLock(Connection connection) throws SQLException {
+        if (!queryBoolean(connection, TRY_LOCK)) {
+            return null;
+        }
+        try {
+            return expireAll();
+        } finally {
+            queryBoolean(connection, UNLOCK);
+        }
+    }
+    
+    long expireAll() {
+        int batchSize = cardExpiryProperties.getBatchSize();
+        long lastId = 0;
+        long expired = 0;
+        
+        while (true) {
+            Long chunkEnd = jdbcTemplate.queryForObject(SELECT_CHUNK_END, Long.class, lastId, batchSize);
+            if (chunkEnd == null) {
+                return expired;
+            }
+            expired += jdbcTemplate.update(EXPIRE_CHUNK, lastId, chunkEnd);
+            lastId = chunkEnd;
+        }
+    }
+    
+    private static boolean queryBoolean(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() && resultSet.getBoolean(1);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package bank.card.management.job;
+
+import bank.card.management.config.EncryptionProperties;
+import bank.card.management.exception.EncryptionException;
+import bank.card.management.util.EncryptionUtil;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Переносит номера из текстовой колонки card_number (Base64) в двоичную card_number_bin (changeset 014).
+// Как и остальные задачи, идёт keyset-пагинацией по id короткими autocommit-чанками. Перенесённая строка
+// получает card_number = NULL, поэтому повторный проход её не выбирает, а место освобождает VACUUM
+@Component
+@RequiredArgsConstructor
+public class CardNumberBinaryMigrationJob {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CardNumberBinaryMigrationJob.class);
+    
+    private static final String SELECT_CHUNK =
+            "SELECT id, card_number FROM bank_cards WHERE id > ? AND card_number IS NOT NULL ORDER BY id LIMIT ?";
+    
+    // compare-and-set по старому значению, как у перешифрования; version увеличивается, чтобы сущность,
+    // загруженная до переноса, не записала поверх card_number_bin прежнее значение
+    private static final String UPDATE_CARD_NUMBER =
+            "UPDATE bank_cards SET card_number_bin = ?, card_number = NULL, version = version + 1 " +
+            "WHERE id = ? AND card_number = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final EncryptionUtil encryptionUtil;
+    private final EncryptionProperties encryptionProperties;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    @Scheduled(fixedDelayString = "${encryption.binary-migration.interval:60000}")
+    public void run() {
+        if (!encryptionProperties.getBinaryMigration().isEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long updated = migrate();
+            if (updated > 0) {
+                logger.info("Moved {} card numbers to binary storage", updated);
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    long migrate() {
+        int batchSize = encryptionProperties.getBinaryMigration().getBatchSize();
+        long lastId = 0;
+        long updated = 0;
+        
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(SELECT_CHUNK,
+                    (rs, rowNum) -> new Object[] {rs.getLong("id"), rs.getString("card_number")},
+                    lastId, batchSize);
+            if (rows.isEmpty()) {
+                return updated;
+            }
+            
+            List<Object[]> batch = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                String current = (String) row[1];
+                try {
+                    batch.add(new Object[] {encryptionUtil.toBinary(current), row[0], current});
+                } catch (EncryptionException e) {
+                    logger.warn("Skipping card {}: card number cannot be decrypted", row[0]);
+                }
+            }
+            if (!batch.isEmpty()) {
+                for (int count : jdbcTemplate.batchUpdate(UPDATE_CARD_NUMBER, batch)) {
+                    // Драйвер может вернуть SUCCESS_NO_INFO (-2) вместо числа строк
+                    updated += Math.max(count, 0);
+                }
+            }
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+        }
+    }
+}
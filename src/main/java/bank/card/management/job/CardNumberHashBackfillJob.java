@@ -0,0 +1,124 @@
+package bank.card.management.job;
+
+import bank.card.management.config.EncryptionProperties;
+import bank.card.management.exception.EncryptionException;
+import bank.card.management.util.CardNumberHasher;
+import bank.card.management.util.EncryptionUtil;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Заполняет card_number_hash у строк, созданных до появления blind index. Как и CardNumberReencryptionJob,
+// идёт keyset-пагинацией по id короткими autocommit-чанками; новые карты получают хэш при создании.
+// Номер берётся из card_number_bin, а у строк, ещё не перенесённых CardNumberBinaryMigrationJob, — из card_number
+@Component
+@RequiredArgsConstructor
+public class CardNumberHashBackfillJob {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CardNumberHashBackfillJob.class);
+    
+    private static final String SELECT_CHUNK =
+            "SELECT id, card_number, card_number_bin FROM bank_cards WHERE id > ? AND card_number_hash IS NULL " +
+            "ORDER BY id LIMIT ?";
+    
+    private static final String UPDATE_HASH =
+            "UPDATE bank_cards SET card_number_hash = ? WHERE id = ? AND card_number_hash IS NULL";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final EncryptionUtil encryptionUtil;
+    private final CardNumberHasher cardNumberHasher;
+    private final EncryptionProperties encryptionProperties;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    @Scheduled(fixedDelayString = "${encryption.blind-index-backfill.interval:60000}")
+    public void run() {
+        if (!encryptionProperties.getBlindIndexBackfill().isEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long updated = backfill();
+            if (updated > 0) {
+                logger.info("Backfilled card_number_hash for {} cards", updated);
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    long backfill() {
+        int batchSize = encryptionProperties.getBlindIndexBackfill().getBatchSize();
+        long lastId = 0;
+        long updated = 0;
+        
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(SELECT_CHUNK,
+                    (rs, rowNum) -> new Object[] {rs.getLong("id"), rs.getString("card_number"),
+                            rs.getBytes("card_number_bin")},
+                    lastId, batchSize);
+            if (rows.isEmpty()) {
+                return updated;
+            }
+            
+            List<Object[]> batch = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                try {
+                    batch.add(new Object[] {cardNumberHasher.hash(decrypt(row)), row[0]});
+                } catch (EncryptionException e) {
+                    logger.warn("Skipping card {}: card number cannot be decrypted", row[0]);
+                }
+            }
+            updated += update(batch);
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+        }
+    }
+    
+    private String decrypt(Object[] row) {
+        if (row[2] != null) {
+            return new String(encryptionUtil.decrypt((byte[]) row[2]), StandardCharsets.UTF_8);
+        }
+        if (row[1] == null) {
+            throw new EncryptionException("Card number is missing");
+        }
+        return encryptionUtil.decrypt((String) row[1]);
+    }
+    
+    private long update(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            return countUpdated(jdbcTemplate.batchUpdate(UPDATE_HASH, batch));
+        } catch (DataIntegrityViolationException e) {
+            // В старых данных один номер мог быть сохранён дважды: такие строки остаются без хэша
+            // до ручного разбора, а остальные строки чанка заполняются по одной
+            long updated = 0;
+            for (Object[] args : batch) {
+                try {
+                    updated += jdbcTemplate.update(UPDATE_HASH, args);
+                } catch (DataIntegrityViolationException duplicate) {
+                    logger.warn("Card {} duplicates the number of another card, hash left empty", args[1]);
+                }
+            }
+            return updated;
+        }
+    }
+    
+    // Драйвер может вернуть SUCCESS_NO_INFO (-2) вместо числа строк
+    private static long countUpdated(int[] counts) {
+        long updated = 0;
+        for (int count : counts) {
+            updated += Math.max(count, 0);
+        }
+        return updated;
+    }
+}
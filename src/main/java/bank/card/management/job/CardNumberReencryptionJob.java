@@ -0,0 +1,99 @@
+package bank.card.management.job;
+
+import bank.card.management.config.EncryptionProperties;
+import bank.card.management.util.EncryptionUtil;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Онлайн-ротация ключа: обходит bank_cards keyset-пагинацией по id и перешифровывает номера в card_number_bin,
+// зашифрованные не активной версией ключа (версия — первый байт шифртекста). Строки, ещё не перенесённые
+// из card_number, переводит CardNumberBinaryMigrationJob. Каждый чанк — отдельная короткая транзакция (autocommit),
+// поэтому блокировки строк держатся миллисекунды
+@Component
+@RequiredArgsConstructor
+public class CardNumberReencryptionJob {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CardNumberReencryptionJob.class);
+    
+    private static final String SELECT_CHUNK =
+            "SELECT id, card_number_bin FROM bank_cards WHERE id > ? AND card_number_bin IS NOT NULL " +
+            "AND get_byte(card_number_bin, 0) <> ? ORDER BY id LIMIT ?";
+    
+    // compare-and-set: строку, изменённую после чтения, пропускаем до следующего прохода;
+    // version увеличивается, чтобы OPTIMISTIC-переводы, читавшие старый номер, не перезаписали новый
+    private static final String UPDATE_CARD_NUMBER =
+            "UPDATE bank_cards SET card_number_bin = ?, version = version + 1 WHERE id = ? AND card_number_bin = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final EncryptionUtil encryptionUtil;
+    private final EncryptionProperties encryptionProperties;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    @Scheduled(fixedDelayString = "${encryption.reencryption.interval:300000}")
+    public void run() {
+        if (!encryptionProperties.getReencryption().isEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long updated = reencryptAll();
+            if (updated > 0) {
+                logger.info("Re-encrypted {} card numbers with key version {}",
+                        updated, encryptionProperties.getActiveKeyVersion());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    long reencryptAll() throws InterruptedException {
+        EncryptionProperties.Reencryption settings = encryptionProperties.getReencryption();
+        int activeVersion = encryptionUtil.getActiveVersion();
+        long lastId = 0;
+        long updated = 0;
+        
+        while (true) {
+            long chunkStart = System.nanoTime();
+            List<Object[]> rows = jdbcTemplate.query(SELECT_CHUNK,
+                    (rs, rowNum) -> new Object[] {rs.getLong("id"), rs.getBytes("card_number_bin")},
+                    lastId, activeVersion, settings.getBatchSize());
+            if (rows.isEmpty()) {
+                return updated;
+            }
+            
+            List<Object[]> batch = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                byte[] current = (byte[]) row[1];
+                batch.add(new Object[] {encryptionUtil.reencrypt(current), row[0], current});
+            }
+            for (int count : jdbcTemplate.batchUpdate(UPDATE_CARD_NUMBER, batch)) {
+                // Драйвер может вернуть SUCCESS_NO_INFO (-2) вместо числа строк
+                updated += Math.max(count, 0);
+            }
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+            
+            throttle(rows.size(), settings.getMaxRowsPerSecond(), System.nanoTime() - chunkStart);
+        }
+    }
+    
+    private static void throttle(int rows, int maxRowsPerSecond, long elapsedNanos) throws InterruptedException {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long budgetNanos = rows * 1_000_000_000L / maxRowsPerSecond;
+        long sleepMillis = (budgetNanos - elapsedNanos) / 1_000_000L;
+        if (sleepMillis > 0) {
+            Thread.sleep(sleepMillis);
+        }
+    }
+}
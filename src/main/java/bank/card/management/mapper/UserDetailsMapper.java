@@ -1,5 +1,6 @@
 package bank.card.management.mapper;
 
+import bank.card.management.cache.CachedUser;
 import bank.card.management.entity.User;
 import bank.card.management.entity.UserStatus;
 import bank.card.management.util.RoleConstants;
@@ -27,6 +28,16 @@ public class UserDetailsMapper {
                 .build();
     }
     
+    // Пароль не нужен: запрос уже аутентифицирован JWT-токеном
+    public UserDetails toUserDetails(CachedUser user) {
+        return builder()
+                .username(user.username())
+                .password("")
+                .authorities(user.authorities().toArray(String[]::new))
+                .disabled(user.status() != UserStatus.ACTIVE)
+                .build();
+    }
+    
     private Collection<? extends GrantedAuthority> getAuthorities(User user) {
         return user.getRoles().stream()
                 .map(role -> new SimpleGrantedAuthority(RoleConstants.ROLE_PREFIX + role.getName().name()))
@@ -1,36 +1,137 @@
 package bank.card.management.repository;
 
+import bank.card.management.dto.response.AdminCardResponse;
+import bank.card.management.dto.response.CardResponse;
 import bank.card.management.entity.BankCard;
 import bank.card.management.entity.CardStatus;
-import bank.card.management.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BankCardRepository extends JpaRepository<BankCard, Long> {
     
-    Page<BankCard> findByUser(User user, Pageable pageable);
+    // Выражения совпадают с GIN-индексами idx_bank_cards_owner_trgm и idx_bank_cards_card_number_masked_trgm:
+    // Hibernate переводит их в lower(owner) LIKE lower('%'||?||'%') и card_number_masked LIKE '%'||?||'%'
+    String SEARCH_PREDICATE = "(LOWER(c.owner) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                              "c.cardNumberMasked LIKE CONCAT('%', :search, '%'))";
     
-    Page<BankCard> findByUserAndStatus(User user, CardStatus status, Pageable pageable);
+    // Листинги выбирают только колонки ответа конструктор-выражением: без шифртекста card_number,
+    // без прокси User и без снимков для dirty checking в persistence context
+    String CARD_RESPONSE = "new bank.card.management.dto.response.CardResponse(" +
+                           "c.id, c.cardNumberMasked, c.owner, c.expiryDate, c.status, c.balance)";
     
-    @Query("SELECT c FROM BankCard c WHERE c.user = :user AND " +
-           "(LOWER(c.owner) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "c.cardNumberMasked LIKE CONCAT('%', :search, '%'))")
-    Page<BankCard> findByUserAndSearchTerm(@Param("user") User user, 
-                                           @Param("search") String search, 
-                                           Pageable pageable);
+    // c.user.id читается из внешнего ключа bank_cards.user_id без join с users
+    String ADMIN_CARD_RESPONSE = "new bank.card.management.dto.response.AdminCardResponse(" +
+                                 "c.id, c.cardNumberMasked, c.owner, c.expiryDate, c.status, c.balance, c.user.id)";
     
-    List<BankCard> findByUserAndStatus(User user, CardStatus status);
+    @Query(value = "SELECT " + CARD_RESPONSE + " FROM BankCard c WHERE c.user.id = :userId",
+           countQuery = "SELECT count(c) FROM BankCard c WHERE c.user.id = :userId")
+    Page<CardResponse> findCardResponsesByUserId(@Param("userId") Long userId, Pageable pageable);
     
-    Optional<BankCard> findByIdAndUser(Long id, User user);
+    Page<BankCard> findByUserIdAndStatus(Long userId, CardStatus status, Pageable pageable);
     
-    boolean existsByCardNumberMasked(String cardNumberMasked);
+    // Slice запрашивает size + 1 строк, чтобы узнать о следующей странице, и не выполняет count(*)
+    @Query("SELECT " + CARD_RESPONSE + " FROM BankCard c WHERE c.user.id = :userId")
+    Slice<CardResponse> findCardResponseSliceByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query(value = "SELECT " + ADMIN_CARD_RESPONSE + " FROM BankCard c",
+           countQuery = "SELECT count(c) FROM BankCard c")
+    Page<AdminCardResponse> findAdminCardResponses(Pageable pageable);
+    
+    @Query("SELECT " + ADMIN_CARD_RESPONSE + " FROM BankCard c")
+    Slice<AdminCardResponse> findAdminCardResponseSlice(Pageable pageable);
+    
+    // Keyset-прокрутка без OFFSET и без count(*): стоимость страницы не зависит от её глубины
+    Window<BankCard> findWindowByUserId(Long userId, ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<BankCard> findWindowBy(ScrollPosition position, Sort sort, Limit limit);
+    
+    @Query(value = "SELECT " + CARD_RESPONSE + " FROM BankCard c WHERE c.user.id = :userId AND " + SEARCH_PREDICATE,
+           countQuery = "SELECT count(c) FROM BankCard c WHERE c.user.id = :userId AND " + SEARCH_PREDICATE)
+    Page<CardResponse> findCardResponsesByUserIdAndSearchTerm(@Param("userId") Long userId,
+                                                              @Param("search") String search,
+                                                              Pageable pageable);
+    
+    @Query("SELECT " + CARD_RESPONSE + " FROM BankCard c WHERE c.user.id = :userId AND " + SEARCH_PREDICATE)
+    Slice<CardResponse> findCardResponseSliceByUserIdAndSearchTerm(@Param("userId") Long userId,
+                                                                   @Param("search") String search,
+                                                                   Pageable pageable);
+    
+    // Поиск по всем картам; без count(*), который на миллионах совпадений дороже самой страницы
+    @Query("SELECT " + ADMIN_CARD_RESPONSE + " FROM BankCard c WHERE " + SEARCH_PREDICATE)
+    Slice<AdminCardResponse> findAdminCardResponseSliceBySearchTerm(@Param("search") String search, Pageable pageable);
+    
+    // Выгрузка курсором: драйвер PostgreSQL читает строки порциями по fetch size только внутри транзакции
+    // (autocommit=false), иначе весь результат материализуется в памяти. DTO не попадают в persistence context
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT " + ADMIN_CARD_RESPONSE + " FROM BankCard c ORDER BY c.id")
+    Stream<AdminCardResponse> streamAdminCardResponses();
+    
+    // Оценка числа строк из статистики планировщика (обновляется autovacuum/ANALYZE), без сканирования таблицы;
+    // до первого ANALYZE reltuples равен -1
+    @Query(value = "SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE oid = 'bank_cards'::regclass",
+           nativeQuery = true)
+    long estimateCount();
+    
+    List<BankCard> findByUserIdAndStatus(Long userId, CardStatus status);
+    
+    Optional<BankCard> findByIdAndUserId(Long id, Long userId);
+    
+    List<BankCard> findAllByIdInAndUserId(Collection<Long> ids, Long userId);
+    
+    // SELECT ... FOR UPDATE: строки блокируются в порядке ORDER BY, поэтому встречные переводы не дают deadlock.
+    // Одиночный перевод в режиме ATOMIC обходится без него; запрос нужен режиму PESSIMISTIC и пакетным переводам,
+    // которые считают балансы в памяти
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM BankCard c WHERE c.user.id = :userId AND c.id IN :ids ORDER BY c.id")
+    List<BankCard> findAllByIdInAndUserIdForUpdate(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+    
+    // Проверка и списание одним UPDATE: 0 строк означает, что карта не найдена, не активна или баланса не хватает.
+    // Меняется только строка card_balances: bank_cards лишь читается в FROM и не переписывается
+    @Modifying
+    @Query(value = "UPDATE card_balances b SET balance = b.balance - :amount, version = b.version + 1 " +
+                   "FROM bank_cards c WHERE b.card_id = c.id AND c.id = :id AND c.user_id = :userId " +
+                   "AND c.status = 'ACTIVE' AND b.balance >= :amount",
+           nativeQuery = true)
+    int debitActiveCard(@Param("id") Long id,
+                        @Param("userId") Long userId,
+                        @Param("amount") BigDecimal amount);
+    
+    @Modifying
+    @Query(value = "UPDATE card_balances b SET balance = b.balance + :amount, version = b.version + 1 " +
+                   "FROM bank_cards c WHERE b.card_id = c.id AND c.id = :id AND c.user_id = :userId " +
+                   "AND c.status = 'ACTIVE'",
+           nativeQuery = true)
+    int creditActiveCard(@Param("id") Long id,
+                         @Param("userId") Long userId,
+                         @Param("amount") BigDecimal amount);
+    
+    boolean existsByCardNumberHash(String cardNumberHash);
+    
+    Optional<BankCard> findByCardNumberHash(String cardNumberHash);
 }
 
@@ -0,0 +1,14 @@
+package bank.card.management.repository;
+
+import bank.card.management.entity.Transfer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface TransferRepository extends JpaRepository<Transfer, Long> {
+    
+    // Покрывается уникальным индексом idx_transfers_user_idempotency_key
+    Optional<Transfer> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+}
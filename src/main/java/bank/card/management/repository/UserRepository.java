@@ -1,9 +1,19 @@
 package bank.card.management.repository;
 
 import bank.card.management.entity.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,5 +22,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+    
+    Window<User> findWindowBy(ScrollPosition position, Sort sort, Limit limit);
+    
+    Slice<User> findSliceBy(Pageable pageable);
+    
+    @Query(value = "SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE oid = 'users'::regclass",
+           nativeQuery = true)
+    long estimateCount();
+    
+    // Заблокированные пользователи и удалённые не раньше, чем истекли бы выданные им токены
+    @Query(value = "SELECT username FROM users WHERE status = 'BLOCKED' " +
+                   "UNION SELECT username FROM deleted_users " +
+                   "WHERE deleted_at > now() - CAST(:tokenLifetimeMillis AS double precision) * interval '1 millisecond'",
+           nativeQuery = true)
+    List<String> findRevokedUsernames(@Param("tokenLifetimeMillis") long tokenLifetimeMillis);
+    
+    @Modifying
+    @Query(value = "INSERT INTO deleted_users (username, deleted_at) VALUES (:username, now()) " +
+                   "ON CONFLICT (username) DO UPDATE SET deleted_at = excluded.deleted_at",
+           nativeQuery = true)
+    int recordDeletion(@Param("username") String username);
 }
 
@@ -1,29 +1,43 @@
 package bank.card.management.security;
 
+import bank.card.management.cache.UserCache;
+import bank.card.management.entity.UserStatus;
+import bank.card.management.mapper.UserDetailsMapper;
 import bank.card.management.service.impl.UserDetailsServiceImpl;
 import bank.card.management.util.JwtConstants;
 import bank.card.management.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
+    private final UserCache userCache;
+    private final UserDetailsMapper userDetailsMapper;
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final JwtUtil jwtUtil;
     
+    @Value("${jwt.stateless:false}")
+    private boolean stateless;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
@@ -44,21 +58,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String authorizationHeader = request.getHeader("Authorization");
         
         String username = null;
-        String jwt = null;
+        Claims claims = null;
         
         if (authorizationHeader != null && authorizationHeader.startsWith(JwtConstants.BEARER_PREFIX)) {
-            jwt = authorizationHeader.substring(JwtConstants.BEARER_PREFIX.length());
+            String jwt = authorizationHeader.substring(JwtConstants.BEARER_PREFIX.length());
             try {
-                username = jwtUtil.extractUsername(jwt);
+                claims = verifiedTokenCache.verify(jwt);
+                username = claims.getSubject();
             } catch (Exception e) {
                 logger.error("JWT token is invalid", e);
             }
         }
         
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = stateless
+                    ? loadFromClaims(claims)
+                    : loadFromCache(claims);
             
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -67,5 +84,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         chain.doFilter(request, response);
     }
+    
+    private UserDetails loadFromCache(Claims claims) {
+        UserDetails userDetails = userDetailsMapper.toUserDetails(userCache.get(claims.getSubject()));
+        return jwtUtil.validateClaims(claims, userDetails) ? userDetails : null;
+    }
+    
+    // Подпись и срок действия уже проверены при разборе токена; к БД обращаемся только для отозванных пользователей
+    private UserDetails loadFromClaims(Claims claims) {
+        String username = claims.getSubject();
+        if (revocationRegistry.isRevoked(username)) {
+            try {
+                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                return userDetails.isEnabled() ? userDetails : null;
+            } catch (UsernameNotFoundException e) {
+                return null;
+            }
+        }
+        
+        String status = claims.get(JwtConstants.STATUS_CLAIM, String.class);
+        if (status != null && !UserStatus.ACTIVE.name().equals(status)) {
+            return null;
+        }
+        
+        List<?> authorities = claims.get(JwtConstants.AUTHORITIES_CLAIM, List.class);
+        return org.springframework.security.core.userdetails.User.builder()
+                .username(username)
+                .password("")
+                .authorities(authorities == null ? new String[0] : authorities.stream()
+                        .map(String::valueOf)
+                        .toArray(String[]::new))
+                .build();
+    }
 }
-
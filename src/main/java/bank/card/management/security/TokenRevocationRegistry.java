@@ -0,0 +1,66 @@
+package bank.card.management.security;
+
+import bank.card.management.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Набор пользователей, токены которых нельзя принимать по одним claims: заблокированные и удалённые.
+// Локальные изменения применяются сразу после commit, изменения с других экземпляров — после ближайшего
+// обновления из БД (users.status и deleted_users)
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationRegistry.class);
+    
+    private final UserRepository userRepository;
+    
+    // Удалённый пользователь остаётся в наборе, пока не истекли бы выданные ему токены
+    @Value("${jwt.expiration}")
+    private long tokenLifetimeMillis;
+    
+    private volatile Set<String> revokedUsernames = ConcurrentHashMap.newKeySet();
+    
+    public boolean isRevoked(String username) {
+        return revokedUsernames.contains(username);
+    }
+    
+    public void revoke(String username) {
+        afterCommit(() -> revokedUsernames.add(username));
+    }
+    
+    public void restore(String username) {
+        afterCommit(() -> revokedUsernames.remove(username));
+    }
+    
+    @Scheduled(fixedDelayString = "${jwt.revocation-refresh-interval:30000}")
+    public void refresh() {
+        Set<String> revoked = ConcurrentHashMap.newKeySet();
+        revoked.addAll(userRepository.findRevokedUsernames(tokenLifetimeMillis));
+        revokedUsernames = revoked;
+        logger.debug("Token revocation set refreshed: {} revoked users", revoked.size());
+    }
+    
+    // При откате транзакции блокировка, разблокировка или удаление не состоялись, и набор не должен меняться
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
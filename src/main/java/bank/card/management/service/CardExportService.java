@@ -0,0 +1,8 @@
+package bank.card.management.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface CardExportService {
+    void exportCards(CardFileFormat format, OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,38 @@
+package bank.card.management.service;
+
+import bank.card.management.exception.CardImportException;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+
+// Форматы файлов выгрузки и загрузки карт: одна запись на строку
+public enum CardFileFormat {
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv"),
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+    
+    private final MediaType mediaType;
+    private final String extension;
+    
+    CardFileFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+    
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    // Параметры (charset) не учитываются: text/csv;charset=UTF-8 — тоже CSV
+    public static CardFileFormat fromMediaType(MediaType mediaType) {
+        for (CardFileFormat format : values()) {
+            if (format.mediaType.equalsTypeAndSubtype(mediaType)) {
+                return format;
+            }
+        }
+        throw new CardImportException("Unsupported content type: " + mediaType);
+    }
+}
@@ -0,0 +1,10 @@
+package bank.card.management.service;
+
+import bank.card.management.dto.response.CardImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface CardImportService {
+    CardImportResponse importCards(CardFileFormat format, InputStream inputStream, String username) throws IOException;
+}
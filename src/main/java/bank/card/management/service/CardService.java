@@ -3,8 +3,10 @@ package bank.card.management.service;
 import bank.card.management.dto.request.CreateCardRequest;
 import bank.card.management.dto.response.AdminCardResponse;
 import bank.card.management.dto.response.CardResponse;
+import bank.card.management.dto.response.CursorPageResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -13,14 +15,30 @@ public interface CardService {
 
     Page<CardResponse> getUserCards(String username, Pageable pageable);
 
+    Slice<CardResponse> getUserCardsSlice(String username, Pageable pageable);
+
     Page<AdminCardResponse> getAllCards(Pageable pageable);
 
+    Slice<AdminCardResponse> getAllCardsSlice(Pageable pageable);
+
+    Page<AdminCardResponse> getAllCardsWithApproximateTotal(Pageable pageable);
+
+    Slice<AdminCardResponse> searchAllCards(String searchTerm, Pageable pageable);
+
+    CursorPageResponse<CardResponse> scrollUserCards(String username, String sortBy, String cursor, int size);
+
+    CursorPageResponse<AdminCardResponse> scrollAllCards(String sortBy, String cursor, int size);
+
     Page<CardResponse> searchUserCards(String username, String searchTerm, Pageable pageable);
 
+    Slice<CardResponse> searchUserCardsSlice(String username, String searchTerm, Pageable pageable);
+
     CardResponse getCardById(Long cardId, String username);
 
     AdminCardResponse getCardByIdAdmin(Long cardId);
 
+    AdminCardResponse findCardByNumberAdmin(String cardNumber);
+
     CardResponse blockCard(Long cardId, String username);
 
     AdminCardResponse activateCard(Long cardId);
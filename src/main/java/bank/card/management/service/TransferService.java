@@ -1,8 +1,12 @@
 package bank.card.management.service;
 
+import bank.card.management.dto.request.BatchTransferRequest;
 import bank.card.management.dto.request.TransferRequest;
+import bank.card.management.dto.response.BatchTransferResponse;
 import bank.card.management.dto.response.TransferResponse;
 
 public interface TransferService {
-    TransferResponse transferBetweenOwnCards(TransferRequest request, String username);
+    TransferResponse transferBetweenOwnCards(TransferRequest request, String username, String idempotencyKey);
+    
+    BatchTransferResponse transferBatch(BatchTransferRequest request, String username);
 }
@@ -1,12 +1,20 @@
 package bank.card.management.service;
 
+import bank.card.management.dto.response.CursorPageResponse;
 import bank.card.management.dto.response.UserResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface UserService {
     Page<UserResponse> getAllUsers(Pageable pageable);
 
+    Slice<UserResponse> getAllUsersSlice(Pageable pageable);
+
+    Page<UserResponse> getAllUsersWithApproximateTotal(Pageable pageable);
+
+    CursorPageResponse<UserResponse> scrollAllUsers(String sortBy, String cursor, int size);
+
     UserResponse getUserById(Long userId);
 
     void deleteUser(Long userId);
@@ -50,10 +50,10 @@ public class AuthServiceImpl implements AuthService {
         
         SecurityContextHolder.getContext().setAuthentication(authentication);
         UserDetails userDetails = userDetailsService.loadUserByUsername(loginRequest.getUsername());
-        String jwt = jwtUtil.generateToken(userDetails);
         
         User user = userRepository.findByUsername(loginRequest.getUsername())
                 .orElseThrow(() -> new UserNotFoundException("User not found: " + loginRequest.getUsername()));
+        String jwt = jwtUtil.generateToken(userDetails, user.getId());
         
         List<String> roles = user.getRoles().stream()
                 .map(role -> role.getName().name())
@@ -0,0 +1,138 @@
+package bank.card.management.service.impl;
+
+import bank.card.management.dto.response.AdminCardResponse;
+import bank.card.management.repository.BankCardRepository;
+import bank.card.management.service.CardExportService;
+import bank.card.management.service.CardFileFormat;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class CardExportServiceImpl implements CardExportService {
+    
+    private static final String CSV_HEADER = "id,cardNumber,owner,expiryDate,status,balance,userId";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final BankCardRepository cardRepository;
+    
+    // Транзакция открывается в потоке, который пишет ответ: курсор живёт, пока строки уходят клиенту,
+    // а в памяти одновременно находятся только порция fetch size и буфер записи
+    @Override
+    @Transactional(readOnly = true)
+    public void exportCards(CardFileFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == CardFileFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        
+        try (Stream<AdminCardResponse> cards = cardRepository.streamAdminCardResponses()) {
+            cards.forEach(card -> {
+                try {
+                    if (format == CardFileFormat.CSV) {
+                        writeCsv(writer, card);
+                    } else {
+                        writeJson(writer, card);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Клиент закрыл соединение: прерываем чтение курсора
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+    
+    private static void writeCsv(Writer writer, AdminCardResponse card) throws IOException {
+        writer.write(String.valueOf(card.getId()));
+        writer.write(',');
+        writeCsvField(writer, card.getCardNumber());
+        writer.write(',');
+        writeCsvField(writer, card.getOwner());
+        writer.write(',');
+        writeCsvField(writer, card.getExpiryDate() == null ? null : card.getExpiryDate().toString());
+        writer.write(',');
+        writeCsvField(writer, card.getStatus() == null ? null : card.getStatus().name());
+        writer.write(',');
+        writeCsvField(writer, card.getBalance() == null ? null : card.getBalance().toPlainString());
+        writer.write(',');
+        writeCsvField(writer, card.getUserId() == null ? null : card.getUserId().toString());
+        writer.write('\n');
+    }
+    
+    // RFC 4180: поле в кавычках, если содержит разделитель, кавычку или перевод строки
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+    
+    private static void writeJson(Writer writer, AdminCardResponse card) throws IOException {
+        writer.write("{\"id\":");
+        writer.write(String.valueOf(card.getId()));
+        writer.write(",\"cardNumber\":");
+        writeJsonString(writer, card.getCardNumber());
+        writer.write(",\"owner\":");
+        writeJsonString(writer, card.getOwner());
+        writer.write(",\"expiryDate\":");
+        writeJsonString(writer, card.getExpiryDate() == null ? null : card.getExpiryDate().toString());
+        writer.write(",\"status\":");
+        writeJsonString(writer, card.getStatus() == null ? null : card.getStatus().name());
+        writer.write(",\"balance\":");
+        writer.write(card.getBalance() == null ? "null" : card.getBalance().toPlainString());
+        writer.write(",\"userId\":");
+        writer.write(String.valueOf(card.getUserId()));
+        writer.write("}\n");
+    }
+    
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
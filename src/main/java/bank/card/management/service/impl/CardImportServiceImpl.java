@@ -0,0 +1,545 @@
+package bank.card.management.service.impl;
+
+import bank.card.management.cache.UserCache;
+import bank.card.management.config.CardImportProperties;
+import bank.card.management.dto.request.ImportCardRequest;
+import bank.card.management.dto.response.CardImportErrorResponse;
+import bank.card.management.dto.response.CardImportResponse;
+import bank.card.management.entity.CardStatus;
+import bank.card.management.exception.CardImportException;
+import bank.card.management.service.CardFileFormat;
+import bank.card.management.service.CardImportService;
+import bank.card.management.util.CardNumberHasher;
+import bank.card.management.util.CardNumberMasker;
+import bank.card.management.util.CardNumberMasker.MaskedCardNumber;
+import bank.card.management.util.EncryptionUtil;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Загрузка идёт конвейером: поток запроса только режет файл на чанки, а разбор, проверка, шифрование
+// и вставка чанка выполняются в пуле. Очередь чанков ограничена, поэтому память не зависит от размера файла
+@Service
+public class CardImportServiceImpl implements CardImportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CardImportServiceImpl.class);
+    
+    private static final String CARD_NUMBER = "cardnumber";
+    private static final String OWNER = "owner";
+    private static final String EXPIRY_DATE = "expirydate";
+    private static final String INITIAL_BALANCE = "initialbalance";
+    private static final String USER_ID = "userid";
+    private static final List<String> REQUIRED_COLUMNS = List.of(CARD_NUMBER, OWNER, EXPIRY_DATE, INITIAL_BALANCE);
+    
+    // Весь чанк — один запрос: массивы колонок разворачиваются unnest-ом, карты и их балансы вставляются
+    // связанными CTE, а итоговый SELECT показывает, какие строки вставлены. Остальные уже есть в таблице
+    // (конфликт по card_number_hash); внешний ключ card_balances проверяется в конце запроса, когда карта уже есть
+    private static final String INSERT_CHUNK =
+            "WITH r AS (SELECT * FROM unnest(?::bytea[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[], " +
+            "?::text[], ?::text[]) " +
+            "AS r(card_number_bin, card_number_masked, card_number_hash, owner, expiry_date, status, balance, user_id)), " +
+            "inserted AS (INSERT INTO bank_cards (card_number_bin, card_number_masked, card_number_hash, owner, " +
+            "expiry_date, status, user_id, created_at, updated_at, version) " +
+            "SELECT r.card_number_bin, r.card_number_masked, r.card_number_hash, r.owner, r.expiry_date::date, " +
+            "r.status, r.user_id::bigint, now(), now(), 0 FROM r " +
+            "ON CONFLICT (card_number_hash) DO NOTHING " +
+            "RETURNING id, card_number_hash), " +
+            "balances AS (INSERT INTO card_balances (card_id, balance, version) " +
+            "SELECT i.id, r.balance::numeric, 0 FROM inserted i JOIN r ON r.card_number_hash = i.card_number_hash) " +
+            "SELECT card_number_hash FROM inserted";
+    
+    private static final String SELECT_EXISTING_USERS = "SELECT id FROM users WHERE id = ANY(?::bigint[])";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final UserCache userCache;
+    private final EncryptionUtil encryptionUtil;
+    private final CardNumberMasker cardNumberMasker;
+    private final CardNumberHasher cardNumberHasher;
+    private final Validator validator;
+    private final ObjectReader jsonReader;
+    private final CardImportProperties properties;
+    private final ExecutorService workers;
+    private final int maxPendingChunks;
+    
+    public CardImportServiceImpl(JdbcTemplate jdbcTemplate,
+                                 UserCache userCache,
+                                 EncryptionUtil encryptionUtil,
+                                 CardNumberMasker cardNumberMasker,
+                                 CardNumberHasher cardNumberHasher,
+                                 Validator validator,
+                                 JsonMapper jsonMapper,
+                                 CardImportProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userCache = userCache;
+        this.encryptionUtil = encryptionUtil;
+        this.cardNumberMasker = cardNumberMasker;
+        this.cardNumberHasher = cardNumberHasher;
+        this.validator = validator;
+        this.jsonReader = jsonMapper.readerFor(ImportCardRequest.class);
+        this.properties = properties;
+        
+        int threads = properties.getWorkers() > 0 ? properties.getWorkers() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "card-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Пока один чанк вставляется, следующий уже шифруется
+        this.maxPendingChunks = threads * 2;
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+    
+    @Override
+    public CardImportResponse importCards(CardFileFormat format, InputStream inputStream, String username)
+            throws IOException {
+        Long defaultUserId = userCache.get(username).id();
+        int chunkSize = properties.getChunkSize();
+        ImportTotals totals = new ImportTotals(properties.getMaxReportedErrors());
+        Deque<Future<ChunkResult>> pending = new ArrayDeque<>();
+        
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        RecordReader records = format == CardFileFormat.CSV ? new CsvRecordReader(reader) : new JsonRecordReader(reader);
+        try {
+            List<RawRecord> chunk = new ArrayList<>(chunkSize);
+            RawRecord record;
+            while ((record = records.next()) != null) {
+                chunk.add(record);
+                if (chunk.size() == chunkSize) {
+                    submit(chunk, defaultUserId, pending, totals);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(chunk, defaultUserId, pending, totals);
+            }
+            while (!pending.isEmpty()) {
+                totals.add(await(pending.poll()));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Чанки, которые ещё не начали выполняться, отменяются; уже вставленные строки остаются
+            pending.forEach(future -> future.cancel(false));
+            throw e;
+        }
+        
+        logger.info("Card import by {}: {} imported, {} failed", username, totals.imported, totals.failed);
+        return new CardImportResponse(totals.imported, totals.failed, totals.errors);
+    }
+    
+    private void submit(List<RawRecord> chunk, Long defaultUserId, Deque<Future<ChunkResult>> pending,
+                        ImportTotals totals) {
+        // Поток запроса ждёт самый старый чанк, если очередь полна: ошибки остаются в порядке строк файла
+        while (pending.size() >= maxPendingChunks) {
+            totals.add(await(pending.poll()));
+        }
+        pending.add(workers.submit(() -> importChunk(chunk, defaultUserId)));
+    }
+    
+    private static ChunkResult await(Future<ChunkResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CardImportException("Card import was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    private ChunkResult importChunk(List<RawRecord> chunk, Long defaultUserId) {
+        List<CardImportErrorResponse> errors = new ArrayList<>();
+        List<PreparedCard> cards = new ArrayList<>(chunk.size());
+        Set<String> hashes = new HashSet<>();
+        LocalDate today = LocalDate.now();
+        
+        for (RawRecord record : chunk) {
+            try {
+                PreparedCard card = prepare(record, defaultUserId, today);
+                if (!hashes.add(card.hash())) {
+                    throw new CardImportException("Card with number " + card.masked() + " is repeated in the file");
+                }
+                cards.add(card);
+            } catch (CardImportException e) {
+                errors.add(new CardImportErrorResponse(record.line(), e.getMessage()));
+            }
+        }
+        
+        cards = rejectUnknownUsers(cards, errors);
+        long imported = insert(cards, errors);
+        errors.sort(Comparator.comparingLong(CardImportErrorResponse::getLine));
+        return new ChunkResult(imported, errors);
+    }
+    
+    private PreparedCard prepare(RawRecord record, Long defaultUserId, LocalDate today) {
+        ImportCardRequest request = record.toRequest(jsonReader);
+        
+        Set<ConstraintViolation<ImportCardRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new CardImportException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        
+        // Маска и проверка Луна за один проход по номеру
+        MaskedCardNumber masked = cardNumberMasker.maskAndValidate(request.getCardNumber());
+        if (!masked.luhnValid()) {
+            throw new CardImportException("Invalid card number " + masked.masked());
+        }
+        
+        CardStatus status = request.getExpiryDate().isBefore(today) ? CardStatus.EXPIRED : CardStatus.ACTIVE;
+        return new PreparedCard(
+                record.line(),
+                encryptionUtil.encrypt(request.getCardNumber().getBytes(StandardCharsets.UTF_8)),
+                masked.masked(),
+                cardNumberHasher.hash(request.getCardNumber()),
+                request.getOwner(),
+                request.getExpiryDate(),
+                status,
+                request.getInitialBalance(),
+                request.getUserId() != null ? request.getUserId() : defaultUserId);
+    }
+    
+    // Внешний ключ отклонил бы весь INSERT чанка, поэтому карты несуществующих пользователей отсеиваются заранее
+    private List<PreparedCard> rejectUnknownUsers(List<PreparedCard> cards, List<CardImportErrorResponse> errors) {
+        Set<Long> userIds = cards.stream().map(PreparedCard::userId).collect(Collectors.toSet());
+        if (userIds.isEmpty()) {
+            return cards;
+        }
+        Set<Long> existing = new HashSet<>(jdbcTemplate.queryForList(SELECT_EXISTING_USERS, Long.class,
+                (Object) userIds.toArray(new Long[0])));
+        if (existing.size() == userIds.size()) {
+            return cards;
+        }
+        
+        List<PreparedCard> accepted = new ArrayList<>(cards.size());
+        for (PreparedCard card : cards) {
+            if (existing.contains(card.userId())) {
+                accepted.add(card);
+            } else {
+                errors.add(new CardImportErrorResponse(card.line(), "User not found with id: " + card.userId()));
+            }
+        }
+        return accepted;
+    }
+    
+    private long insert(List<PreparedCard> cards, List<CardImportErrorResponse> errors) {
+        if (cards.isEmpty()) {
+            return 0;
+        }
+        int size = cards.size();
+        byte[][] cardNumbers = new byte[size][];
+        String[] masked = new String[size];
+        String[] hashes = new String[size];
+        String[] owners = new String[size];
+        String[] expiryDates = new String[size];
+        String[] statuses = new String[size];
+        String[] balances = new String[size];
+        String[] userIds = new String[size];
+        for (int i = 0; i < size; i++) {
+            PreparedCard card = cards.get(i);
+            cardNumbers[i] = card.encryptedNumber();
+            masked[i] = card.masked();
+            hashes[i] = card.hash();
+            owners[i] = card.owner();
+            expiryDates[i] = card.expiryDate().toString();
+            statuses[i] = card.status().name();
+            balances[i] = card.balance().toPlainString();
+            userIds[i] = card.userId().toString();
+        }
+        
+        Set<String> inserted = new HashSet<>(jdbcTemplate.queryForList(INSERT_CHUNK, String.class,
+                cardNumbers, masked, hashes, owners, expiryDates, statuses, balances, userIds));
+        if (inserted.size() < size) {
+            for (PreparedCard card : cards) {
+                if (!inserted.contains(card.hash())) {
+                    errors.add(new CardImportErrorResponse(card.line(),
+                            "Card with number " + card.masked() + " already exists"));
+                }
+            }
+        }
+        return inserted.size();
+    }
+    
+    private record ChunkResult(long imported, List<CardImportErrorResponse> errors) {
+    }
+    
+    private record PreparedCard(long line, byte[] encryptedNumber, String masked, String hash, String owner,
+                                LocalDate expiryDate, CardStatus status, BigDecimal balance, Long userId) {
+    }
+    
+    private static final class ImportTotals {
+        
+        private final int maxReportedErrors;
+        private final List<CardImportErrorResponse> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+        
+        ImportTotals(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+        
+        void add(ChunkResult result) {
+            imported += result.imported();
+            failed += result.errors().size();
+            for (CardImportErrorResponse error : result.errors()) {
+                if (errors.size() >= maxReportedErrors) {
+                    return;
+                }
+                errors.add(error);
+            }
+        }
+    }
+    
+    // Сырая запись файла: разбирается уже в пуле, чтобы поток запроса только читал вход
+    private interface RawRecord {
+        long line();
+        
+        ImportCardRequest toRequest(ObjectReader jsonReader);
+    }
+    
+    private interface RecordReader {
+        RawRecord next() throws IOException;
+    }
+    
+    private record JsonRecord(long line, String json) implements RawRecord {
+        
+        @Override
+        public ImportCardRequest toRequest(ObjectReader jsonReader) {
+            try {
+                ImportCardRequest request = jsonReader.readValue(json);
+                if (request == null) {
+                    throw new CardImportException("Malformed JSON record");
+                }
+                return request;
+            } catch (JacksonException e) {
+                throw new CardImportException("Malformed JSON record: " + e.getOriginalMessage());
+            }
+        }
+    }
+    
+    private record CsvRecord(long line, List<String> fields, int[] columns) implements RawRecord {
+        
+        @Override
+        public ImportCardRequest toRequest(ObjectReader jsonReader) {
+            ImportCardRequest request = new ImportCardRequest();
+            request.setCardNumber(field(0));
+            request.setOwner(field(1));
+            String expiryDate = field(2);
+            if (expiryDate != null) {
+                try {
+                    request.setExpiryDate(LocalDate.parse(expiryDate));
+                } catch (DateTimeParseException e) {
+                    throw new CardImportException("Invalid expiry date: " + expiryDate);
+                }
+            }
+            String balance = field(3);
+            if (balance != null) {
+                try {
+                    request.setInitialBalance(new BigDecimal(balance));
+                } catch (NumberFormatException e) {
+                    throw new CardImportException("Invalid initial balance: " + balance);
+                }
+            }
+            String userId = field(4);
+            if (userId != null) {
+                try {
+                    request.setUserId(Long.valueOf(userId));
+                } catch (NumberFormatException e) {
+                    throw new CardImportException("Invalid user id: " + userId);
+                }
+            }
+            return request;
+        }
+        
+        // Пустое поле равносильно отсутствующему: сработает проверка @NotBlank/@NotNull
+        private String field(int column) {
+            int index = columns[column];
+            if (index < 0 || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+    
+    private static final class JsonRecordReader implements RecordReader {
+        
+        private final BufferedReader reader;
+        private long line;
+        
+        JsonRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+        
+        @Override
+        public RawRecord next() throws IOException {
+            String json;
+            do {
+                json = reader.readLine();
+                line++;
+            } while (json != null && json.isBlank());
+            return json == null ? null : new JsonRecord(line, json);
+        }
+    }
+    
+    // RFC 4180: поля в кавычках могут содержать запятые, удвоенные кавычки и переводы строк
+    private static final class CsvRecordReader implements RecordReader {
+        
+        private static final int NONE = -2;
+        
+        private final Reader reader;
+        private final int[] columns;
+        private long line = 1;
+        private int pushedBack = NONE;
+        
+        CsvRecordReader(Reader reader) throws IOException {
+            this.reader = reader;
+            List<String> header = readFields();
+            if (header == null) {
+                throw new CardImportException("CSV file is empty");
+            }
+            List<String> names = header.stream()
+                    .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                    .toList();
+            this.columns = new int[] {
+                    names.indexOf(CARD_NUMBER),
+                    names.indexOf(OWNER),
+                    names.indexOf(EXPIRY_DATE),
+                    names.indexOf(INITIAL_BALANCE),
+                    names.indexOf(USER_ID)
+            };
+            Set<String> missing = new LinkedHashSet<>(REQUIRED_COLUMNS);
+            names.forEach(missing::remove);
+            if (!missing.isEmpty()) {
+                throw new CardImportException(
+                        "CSV header must contain columns cardNumber, owner, expiryDate, initialBalance");
+            }
+        }
+        
+        @Override
+        public RawRecord next() throws IOException {
+            long recordLine = skipBlankLines();
+            List<String> fields = readFields();
+            return fields == null ? null : new CsvRecord(recordLine, fields, columns);
+        }
+        
+        private long skipBlankLines() throws IOException {
+            int c = read();
+            while (c == '\n' || c == '\r') {
+                c = read();
+            }
+            unread(c);
+            return line;
+        }
+        
+        private List<String> readFields() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>(columns == null ? 8 : columns.length);
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        fields.add(field.toString());
+                        return fields;
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c == '"') {
+                            field.append('"');
+                            c = read();
+                        } else {
+                            quoted = false;
+                        }
+                        continue;
+                    }
+                    field.append((char) c);
+                    c = read();
+                    continue;
+                }
+                if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                    c = read();
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    c = read();
+                } else if (c == '\n' || c == '\r' || c == -1) {
+                    if (c == '\r') {
+                        int next = read();
+                        if (next != '\n') {
+                            unread(next);
+                        }
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                    c = read();
+                }
+            }
+        }
+        
+        private int read() throws IOException {
+            int c;
+            if (pushedBack != NONE) {
+                c = pushedBack;
+                pushedBack = NONE;
+                return c;
+            }
+            c = reader.read();
+            if (c == '\n') {
+                line++;
+            }
+            return c;
+        }
+        
+        // Возвращается только символ, отличный от '\n', поэтому счётчик строк не сбивается
+        private void unread(int c) {
+            pushedBack = c;
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package bank.card.management.service.impl;
 
+import bank.card.management.cache.CachedUser;
+import bank.card.management.cache.UserCache;
 import bank.card.management.dto.request.CreateCardRequest;
 import bank.card.management.dto.response.AdminCardResponse;
 import bank.card.management.dto.response.CardResponse;
+import bank.card.management.dto.response.CursorPageResponse;
 import bank.card.management.entity.BankCard;
 import bank.card.management.entity.CardStatus;
-import bank.card.management.entity.User;
 import bank.card.management.exception.CardAlreadyExistsException;
 import bank.card.management.exception.CardExpiredException;
 import bank.card.management.exception.CardNotFoundException;
@@ -14,15 +16,21 @@ import bank.card.management.mapper.CardResponseMapper;
 import bank.card.management.repository.BankCardRepository;
 import bank.card.management.repository.UserRepository;
 import bank.card.management.service.CardService;
+import bank.card.management.util.CardNumberHasher;
 import bank.card.management.util.CardNumberMasker;
+import bank.card.management.util.CursorHelper;
 import bank.card.management.util.EncryptionUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -33,23 +41,25 @@ public class CardServiceImpl implements CardService {
     
     private final BankCardRepository cardRepository;
     private final UserRepository userRepository;
+    private final UserCache userCache;
     private final EncryptionUtil encryptionUtil;
     private final CardNumberMasker cardNumberMasker;
+    private final CardNumberHasher cardNumberHasher;
     private final CardResponseMapper cardResponseMapper;
     private final AdminCardResponseMapper adminCardResponseMapper;
     
     @Override
     @Transactional
     public CardResponse createCard(CreateCardRequest request, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        CachedUser user = userCache.get(username);
         
         String maskedNumber = cardNumberMasker.maskCardNumber(request.getCardNumber());
-        if (cardRepository.existsByCardNumberMasked(maskedNumber)) {
+        String cardNumberHash = cardNumberHasher.hash(request.getCardNumber());
+        if (cardRepository.existsByCardNumberHash(cardNumberHash)) {
             throw new CardAlreadyExistsException(maskedNumber);
         }
         
-        String encryptedCardNumber = encryptionUtil.encrypt(request.getCardNumber());
+        byte[] encryptedCardNumber = encryptionUtil.encrypt(request.getCardNumber().getBytes(StandardCharsets.UTF_8));
         
         CardStatus status = request.getExpiryDate().isBefore(LocalDate.now())
                 ? CardStatus.EXPIRED 
@@ -58,11 +68,12 @@ public class CardServiceImpl implements CardService {
         BankCard card = new BankCard();
         card.setCardNumber(encryptedCardNumber);
         card.setCardNumberMasked(maskedNumber);
+        card.setCardNumberHash(cardNumberHash);
         card.setOwner(request.getOwner());
         card.setExpiryDate(request.getExpiryDate());
         card.setStatus(status);
         card.setBalance(request.getInitialBalance());
-        card.setUser(user);
+        card.setUser(userRepository.getReferenceById(user.id()));
         
         BankCard savedCard = cardRepository.save(card);
         return cardResponseMapper.toCardResponse(savedCard);
@@ -71,37 +82,91 @@ public class CardServiceImpl implements CardService {
     @Override
     @Transactional(readOnly = true)
     public Page<CardResponse> getUserCards(String username, Pageable pageable) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        CachedUser user = userCache.get(username);
         
-        return cardRepository.findByUser(user, pageable)
-                .map(cardResponseMapper::toCardResponse);
+        return cardRepository.findCardResponsesByUserId(user.id(), pageable);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<CardResponse> getUserCardsSlice(String username, Pageable pageable) {
+        CachedUser user = userCache.get(username);
+        
+        return cardRepository.findCardResponseSliceByUserId(user.id(), pageable);
     }
     
     @Override
     @Transactional(readOnly = true)
     public Page<AdminCardResponse> getAllCards(Pageable pageable) {
-        return cardRepository.findAll(pageable)
-                .map(adminCardResponseMapper::toAdminCardResponse);
+        return cardRepository.findAdminCardResponses(pageable);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<AdminCardResponse> getAllCardsSlice(Pageable pageable) {
+        return cardRepository.findAdminCardResponseSlice(pageable);
+    }
+    
+    // totalElements берётся из статистики PostgreSQL и может отличаться от точного на проценты
+    @Override
+    @Transactional(readOnly = true)
+    public Page<AdminCardResponse> getAllCardsWithApproximateTotal(Pageable pageable) {
+        Slice<AdminCardResponse> slice = getAllCardsSlice(pageable);
+        return new PageImpl<>(slice.getContent(), pageable, cardRepository.estimateCount());
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<AdminCardResponse> searchAllCards(String searchTerm, Pageable pageable) {
+        return cardRepository.findAdminCardResponseSliceBySearchTerm(searchTerm, pageable);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<CardResponse> scrollUserCards(String username, String sortBy, String cursor, int size) {
+        CachedUser user = userCache.get(username);
+        
+        Window<BankCard> window = cardRepository.findWindowByUserId(user.id(),
+                CursorHelper.decode(cursor, sortBy, CursorHelper.CARD_SORT_KEYS),
+                CursorHelper.createSort(sortBy, CursorHelper.CARD_SORT_KEYS),
+                Limit.of(size));
+        return CursorHelper.toResponse(window, sortBy, CursorHelper.CARD_SORT_KEYS,
+                cardResponseMapper::toCardResponse);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<AdminCardResponse> scrollAllCards(String sortBy, String cursor, int size) {
+        Window<BankCard> window = cardRepository.findWindowBy(
+                CursorHelper.decode(cursor, sortBy, CursorHelper.CARD_SORT_KEYS),
+                CursorHelper.createSort(sortBy, CursorHelper.CARD_SORT_KEYS),
+                Limit.of(size));
+        return CursorHelper.toResponse(window, sortBy, CursorHelper.CARD_SORT_KEYS,
+                adminCardResponseMapper::toAdminCardResponse);
     }
     
     @Override
     @Transactional(readOnly = true)
     public Page<CardResponse> searchUserCards(String username, String searchTerm, Pageable pageable) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        CachedUser user = userCache.get(username);
+        
+        return cardRepository.findCardResponsesByUserIdAndSearchTerm(user.id(), searchTerm, pageable);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<CardResponse> searchUserCardsSlice(String username, String searchTerm, Pageable pageable) {
+        CachedUser user = userCache.get(username);
         
-        return cardRepository.findByUserAndSearchTerm(user, searchTerm, pageable)
-                .map(cardResponseMapper::toCardResponse);
+        return cardRepository.findCardResponseSliceByUserIdAndSearchTerm(user.id(), searchTerm, pageable);
     }
     
     @Override
     @Transactional(readOnly = true)
     public CardResponse getCardById(Long cardId, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        CachedUser user = userCache.get(username);
         
-        BankCard card = cardRepository.findByIdAndUser(cardId, user)
+        BankCard card = cardRepository.findByIdAndUserId(cardId, user.id())
                 .orElseThrow(() -> new CardNotFoundException("Card not found or access denied"));
         
         return cardResponseMapper.toCardResponse(card);
@@ -116,13 +181,21 @@ public class CardServiceImpl implements CardService {
         return adminCardResponseMapper.toAdminCardResponse(card);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public AdminCardResponse findCardByNumberAdmin(String cardNumber) {
+        BankCard card = cardRepository.findByCardNumberHash(cardNumberHasher.hash(cardNumber))
+                .orElseThrow(() -> new CardNotFoundException("Card not found"));
+        
+        return adminCardResponseMapper.toAdminCardResponse(card);
+    }
+    
     @Override
     @Transactional
     public CardResponse blockCard(Long cardId, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        CachedUser user = userCache.get(username);
         
-        BankCard card = cardRepository.findByIdAndUser(cardId, user)
+        BankCard card = cardRepository.findByIdAndUserId(cardId, user.id())
                 .orElseThrow(() -> new CardNotFoundException("Card not found or access denied"));
         
         if (card.getStatus() == CardStatus.EXPIRED) {
@@ -176,10 +249,9 @@ public class CardServiceImpl implements CardService {
     @Override
     @Transactional(readOnly = true)
     public List<CardResponse> getUserActiveCards(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        CachedUser user = userCache.get(username);
         
-        return cardRepository.findByUserAndStatus(user, CardStatus.ACTIVE)
+        return cardRepository.findByUserIdAndStatus(user.id(), CardStatus.ACTIVE)
                 .stream()
                 .map(cardResponseMapper::toCardResponse)
                 .collect(Collectors.toList());
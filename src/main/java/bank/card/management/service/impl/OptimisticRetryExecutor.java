@@ -0,0 +1,51 @@
+package bank.card.management.service.impl;
+
+import bank.card.management.config.TransferProperties;
+import bank.card.management.exception.TransferException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+@Component
+@RequiredArgsConstructor
+public class OptimisticRetryExecutor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryExecutor.class);
+    
+    private final TransferProperties transferProperties;
+    
+    // Каждая попытка должна открывать собственную транзакцию, иначе повтор увидит тот же устаревший снимок
+    public <T> T execute(Supplier<T> action) {
+        TransferProperties.Retry retry = transferProperties.getRetry();
+        int attempt = 1;
+        while (true) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= retry.getMaxAttempts()) {
+                    throw new TransferException("Transfer failed due to concurrent card updates, please retry", e);
+                }
+                logger.debug("Optimistic lock conflict on attempt {}: {}", attempt, e.getMessage());
+                backoff(retry, attempt);
+                attempt++;
+            }
+        }
+    }
+    
+    // Экспоненциальная задержка с полным джиттером
+    private void backoff(TransferProperties.Retry retry, int attempt) {
+        long initial = retry.getInitialBackoff().toMillis();
+        long cap = Math.min(retry.getMaxBackoff().toMillis(), initial << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferException("Transfer retry was interrupted", e);
+        }
+    }
+}
@@ -1,71 +1,274 @@
 package bank.card.management.service.impl;
 
+import bank.card.management.cache.CachedUser;
+import bank.card.management.cache.UserCache;
+import bank.card.management.config.TransferProperties;
+import bank.card.management.config.TransferProperties.ConcurrencyMode;
+import bank.card.management.dto.request.BatchTransferRequest;
 import bank.card.management.dto.request.TransferRequest;
+import bank.card.management.dto.response.BatchTransferItemResponse;
+import bank.card.management.dto.response.BatchTransferResponse;
 import bank.card.management.dto.response.TransferResponse;
 import bank.card.management.entity.BankCard;
 import bank.card.management.entity.CardStatus;
-import bank.card.management.entity.User;
+import bank.card.management.entity.Transfer;
+import bank.card.management.exception.BusinessException;
 import bank.card.management.exception.CardNotFoundException;
 import bank.card.management.exception.CardNotActiveException;
 import bank.card.management.exception.InsufficientBalanceException;
 import bank.card.management.exception.TransferException;
 import bank.card.management.repository.BankCardRepository;
+import bank.card.management.repository.TransferRepository;
 import bank.card.management.repository.UserRepository;
 import bank.card.management.service.TransferService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TransferServiceImpl implements TransferService {
     
+    private static final String TRANSFER_COMPLETED = "Transfer completed successfully";
+    
+    // Баланс, посчитанный в памяти, пишется с проверкой версии строки card_balances: 0 строк означает,
+    // что баланс изменили после чтения
+    private static final String UPDATE_BALANCE =
+            "UPDATE card_balances SET balance = ?, version = version + 1 WHERE card_id = ? AND version = ?";
+    
     private final BankCardRepository cardRepository;
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final TransferRepository transferRepository;
+    private final TransferProperties transferProperties;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
     
     @Override
-    @Transactional
-    public TransferResponse transferBetweenOwnCards(TransferRequest request, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    public TransferResponse transferBetweenOwnCards(TransferRequest request, String username, String idempotencyKey) {
+        try {
+            return executeTransfer(request, username, idempotencyKey);
+        } catch (DataIntegrityViolationException e) {
+            // Параллельный запрос с тем же ключом успел записать перевод первым: возвращаем его результат
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            return transactionTemplate.execute(status -> findPreviousTransfer(request, username, idempotencyKey)
+                    .orElseThrow(() -> e));
+        }
+    }
+    
+    @Override
+    public BatchTransferResponse transferBatch(BatchTransferRequest request, String username) {
+        return transactionTemplate.execute(status -> executeBatch(request.getTransfers(), username));
+    }
+    
+    // Все карты пакета блокируются одним запросом в порядке id, переводы применяются в памяти,
+    // затем изменённые балансы пишутся в card_balances одним JDBC-пакетом, а записи журнала (id из pooled-lo
+    // последовательности) Hibernate вставляет пакетами по hibernate.jdbc.batch_size в том же commit
+    private BatchTransferResponse executeBatch(List<TransferRequest> transfers, String username) {
+        CachedUser user = userCache.get(username);
         
-        BankCard fromCard = cardRepository.findByIdAndUser(request.getFromCardId(), user)
-                .orElseThrow(() -> new CardNotFoundException("From card not found or access denied"));
+        TreeSet<Long> ids = new TreeSet<>();
+        for (TransferRequest transfer : transfers) {
+            ids.add(transfer.getFromCardId());
+            ids.add(transfer.getToCardId());
+        }
+        Map<Long, BankCard> cardsById = cardRepository.findAllByIdInAndUserIdForUpdate(ids, user.id()).stream()
+                .collect(Collectors.toMap(BankCard::getId, Function.identity()));
         
-        BankCard toCard = cardRepository.findByIdAndUser(request.getToCardId(), user)
-                .orElseThrow(() -> new CardNotFoundException("To card not found or access denied"));
+        List<BatchTransferItemResponse> results = new ArrayList<>(transfers.size());
+        List<Transfer> ledger = new ArrayList<>(transfers.size());
+        TreeSet<Long> changedIds = new TreeSet<>();
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest item = transfers.get(i);
+            try {
+                if (item.getFromCardId().equals(item.getToCardId())) {
+                    throw new TransferException("Cannot transfer to the same card");
+                }
+                applyTransfer(cardsById, item.getFromCardId(), item.getToCardId(), item.getAmount());
+                changedIds.add(item.getFromCardId());
+                changedIds.add(item.getToCardId());
+                Transfer transfer = newTransfer(user, item, null);
+                ledger.add(transfer);
+                results.add(new BatchTransferItemResponse(i, true, transfer.getTransactionId(), TRANSFER_COMPLETED));
+            } catch (BusinessException e) {
+                // Проверки выполняются до изменения балансов, поэтому отклонённый перевод не оставляет следов
+                results.add(new BatchTransferItemResponse(i, false, null, e.getMessage()));
+            }
+        }
+        writeBalances(cardsById, changedIds);
+        transferRepository.saveAll(ledger);
         
-        if (fromCard.getId().equals(toCard.getId())) {
+        return new BatchTransferResponse(ledger.size(), results.size() - ledger.size(), results);
+    }
+    
+    private TransferResponse executeTransfer(TransferRequest request, String username, String idempotencyKey) {
+        ConcurrencyMode mode = transferProperties.getConcurrencyMode();
+        if (mode == ConcurrencyMode.OPTIMISTIC) {
+            // Повтор оборачивает транзакцию целиком: конфликт версии обнаруживается только при commit
+            return retryExecutor.execute(() -> transactionTemplate.execute(
+                    status -> transfer(request, username, idempotencyKey, mode)));
+        }
+        return transactionTemplate.execute(status -> transfer(request, username, idempotencyKey, mode));
+    }
+    
+    private TransferResponse transfer(TransferRequest request, String username, String idempotencyKey,
+                                      ConcurrencyMode mode) {
+        CachedUser user = userCache.get(username);
+        
+        if (idempotencyKey != null) {
+            Optional<TransferResponse> previous = findPreviousTransfer(request, user, idempotencyKey);
+            if (previous.isPresent()) {
+                return previous.get();
+            }
+        }
+        
+        Long fromCardId = request.getFromCardId();
+        Long toCardId = request.getToCardId();
+        if (fromCardId.equals(toCardId)) {
             throw new TransferException("Cannot transfer to the same card");
         }
         
-        if (fromCard.getStatus() != CardStatus.ACTIVE) {
-            throw new CardNotActiveException("From card is not active");
+        if (mode == ConcurrencyMode.ATOMIC) {
+            transferAtomically(user, fromCardId, toCardId, request.getAmount());
+        } else {
+            transferWithEntities(user, fromCardId, toCardId, request.getAmount(), mode == ConcurrencyMode.PESSIMISTIC);
         }
         
-        if (toCard.getStatus() != CardStatus.ACTIVE) {
+        Transfer transfer = newTransfer(user, request, idempotencyKey);
+        transferRepository.save(transfer);
+        
+        return new TransferResponse(transfer.getTransactionId(), TRANSFER_COMPLETED);
+    }
+    
+    private Transfer newTransfer(CachedUser user, TransferRequest request, String idempotencyKey) {
+        Transfer transfer = new Transfer();
+        transfer.setTransactionId(UUID.randomUUID());
+        transfer.setUser(userRepository.getReferenceById(user.id()));
+        transfer.setFromCardId(request.getFromCardId());
+        transfer.setToCardId(request.getToCardId());
+        transfer.setAmount(request.getAmount());
+        transfer.setIdempotencyKey(idempotencyKey);
+        return transfer;
+    }
+    
+    private Optional<TransferResponse> findPreviousTransfer(TransferRequest request, String username,
+                                                            String idempotencyKey) {
+        return findPreviousTransfer(request, userCache.get(username), idempotencyKey);
+    }
+    
+    private Optional<TransferResponse> findPreviousTransfer(TransferRequest request, CachedUser user, String idempotencyKey) {
+        return transferRepository.findByUserIdAndIdempotencyKey(user.id(), idempotencyKey)
+                .map(previous -> {
+                    if (!previous.getFromCardId().equals(request.getFromCardId())
+                            || !previous.getToCardId().equals(request.getToCardId())
+                            || previous.getAmount().compareTo(request.getAmount()) != 0) {
+                        throw new TransferException("Idempotency key has already been used for a different transfer");
+                    }
+                    return new TransferResponse(previous.getTransactionId(), TRANSFER_COMPLETED);
+                });
+    }
+    
+    private void transferAtomically(CachedUser user, Long fromCardId, Long toCardId, BigDecimal amount) {
+        // UPDATE-ы выполняются в порядке возрастания id, чтобы встречные переводы не давали deadlock
+        if (fromCardId < toCardId) {
+            debit(fromCardId, user, amount);
+            credit(toCardId, user, amount);
+        } else {
+            credit(toCardId, user, amount);
+            debit(fromCardId, user, amount);
+        }
+    }
+    
+    private void debit(Long cardId, CachedUser user, BigDecimal amount) {
+        if (cardRepository.debitActiveCard(cardId, user.id(), amount) == 0) {
+            BankCard card = cardRepository.findByIdAndUserId(cardId, user.id())
+                    .orElseThrow(() -> new CardNotFoundException("From card not found or access denied"));
+            if (card.getStatus() != CardStatus.ACTIVE) {
+                throw new CardNotActiveException("From card is not active");
+            }
+            throw new InsufficientBalanceException(card.getBalance(), amount);
+        }
+    }
+    
+    private void credit(Long cardId, CachedUser user, BigDecimal amount) {
+        if (cardRepository.creditActiveCard(cardId, user.id(), amount) == 0) {
+            cardRepository.findByIdAndUserId(cardId, user.id())
+                    .orElseThrow(() -> new CardNotFoundException("To card not found or access denied"));
             throw new CardNotActiveException("To card is not active");
         }
-        
-        if (fromCard.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientBalanceException(fromCard.getBalance(), request.getAmount());
+    }
+    
+    // Балансы считаются в памяти и пишутся в card_balances с проверкой её version: в OPTIMISTIC режиме
+    // это и есть обнаружение конфликта, в PESSIMISTIC строки уже заблокированы и проверка всегда проходит
+    private void transferWithEntities(CachedUser user, Long fromCardId, Long toCardId, BigDecimal amount, boolean lock) {
+        List<Long> ids = List.of(Math.min(fromCardId, toCardId), Math.max(fromCardId, toCardId));
+        List<BankCard> cards = lock
+                ? cardRepository.findAllByIdInAndUserIdForUpdate(ids, user.id())
+                : cardRepository.findAllByIdInAndUserId(ids, user.id());
+        Map<Long, BankCard> cardsById = cards.stream()
+                .collect(Collectors.toMap(BankCard::getId, Function.identity()));
+        applyTransfer(cardsById, fromCardId, toCardId, amount);
+        writeBalances(cardsById, ids);
+    }
+    
+    // Все UPDATE уходят одним пакетом в порядке возрастания id; строка с нулевым счётчиком — конфликт версии.
+    // Драйвер может вернуть SUCCESS_NO_INFO (-2) вместо числа строк, это не конфликт
+    private void writeBalances(Map<Long, BankCard> cardsById, Collection<Long> ids) {
+        List<Long> orderedIds = List.copyOf(ids);
+        List<Object[]> batch = new ArrayList<>(orderedIds.size());
+        for (Long id : orderedIds) {
+            BankCard card = cardsById.get(id);
+            batch.add(new Object[] {card.getBalance(), id, card.getBalanceVersion()});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_BALANCE, batch);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                throw new ObjectOptimisticLockingFailureException(BankCard.class, orderedIds.get(i));
+            }
+        }
+    }
+    
+    private void applyTransfer(Map<Long, BankCard> cardsById, Long fromCardId, Long toCardId, BigDecimal amount) {
+        BankCard fromCard = cardsById.get(fromCardId);
+        if (fromCard == null) {
+            throw new CardNotFoundException("From card not found or access denied");
         }
         
-        UUID transactionId = UUID.randomUUID();
+        BankCard toCard = cardsById.get(toCardId);
+        if (toCard == null) {
+            throw new CardNotFoundException("To card not found or access denied");
+        }
         
-        BigDecimal newFromBalance = fromCard.getBalance().subtract(request.getAmount());
-        BigDecimal newToBalance = toCard.getBalance().add(request.getAmount());
+        if (fromCard.getStatus() != CardStatus.ACTIVE) {
+            throw new CardNotActiveException("From card is not active");
+        }
         
-        fromCard.setBalance(newFromBalance);
-        toCard.setBalance(newToBalance);
+        if (toCard.getStatus() != CardStatus.ACTIVE) {
+            throw new CardNotActiveException("To card is not active");
+        }
         
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+        if (fromCard.getBalance().compareTo(amount) < 0) {
+            throw new InsufficientBalanceException(fromCard.getBalance(), amount);
+        }
         
-        return new TransferResponse(transactionId, "Transfer completed successfully");
+        fromCard.setBalance(fromCard.getBalance().subtract(amount));
+        toCard.setBalance(toCard.getBalance().add(amount));
     }
 }
@@ -1,15 +1,22 @@
 package bank.card.management.service.impl;
 
+import bank.card.management.cache.UserCache;
+import bank.card.management.dto.response.CursorPageResponse;
 import bank.card.management.dto.response.UserResponse;
 import bank.card.management.entity.User;
 import bank.card.management.entity.UserStatus;
 import bank.card.management.exception.UserNotFoundException;
 import bank.card.management.mapper.UserMapper;
 import bank.card.management.repository.UserRepository;
+import bank.card.management.security.TokenRevocationRegistry;
 import bank.card.management.service.UserService;
+import bank.card.management.util.CursorHelper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +26,8 @@ public class UserServiceImpl implements UserService {
     
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final UserCache userCache;
+    private final TokenRevocationRegistry revocationRegistry;
     
     @Override
     @Transactional(readOnly = true)
@@ -27,6 +36,31 @@ public class UserServiceImpl implements UserService {
                 .map(userMapper::toUserResponse);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<UserResponse> getAllUsersSlice(Pageable pageable) {
+        return userRepository.findSliceBy(pageable)
+                .map(userMapper::toUserResponse);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Page<UserResponse> getAllUsersWithApproximateTotal(Pageable pageable) {
+        Slice<UserResponse> slice = getAllUsersSlice(pageable);
+        return new PageImpl<>(slice.getContent(), pageable, userRepository.estimateCount());
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<UserResponse> scrollAllUsers(String sortBy, String cursor, int size) {
+        return CursorHelper.toResponse(
+                userRepository.findWindowBy(
+                        CursorHelper.decode(cursor, sortBy, CursorHelper.USER_SORT_KEYS),
+                        CursorHelper.createSort(sortBy, CursorHelper.USER_SORT_KEYS),
+                        Limit.of(size)),
+                sortBy, CursorHelper.USER_SORT_KEYS, userMapper::toUserResponse);
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public UserResponse getUserById(Long userId) {
@@ -38,10 +72,13 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public void deleteUser(Long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new UserNotFoundException(userId);
-        }
-        userRepository.deleteById(userId);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException(userId));
+        userRepository.delete(user);
+        // Надгробие в той же транзакции: по нему остальные экземпляры отзовут токены удалённого пользователя
+        userRepository.recordDeletion(user.getUsername());
+        userCache.evict(user.getUsername());
+        revocationRegistry.revoke(user.getUsername());
     }
     
     @Override
@@ -51,6 +88,8 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new UserNotFoundException(userId));
         user.setStatus(UserStatus.BLOCKED);
         User savedUser = userRepository.save(user);
+        userCache.evict(savedUser.getUsername());
+        revocationRegistry.revoke(savedUser.getUsername());
         return userMapper.toUserResponse(savedUser);
     }
     
@@ -61,6 +100,8 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new UserNotFoundException(userId));
         user.setStatus(UserStatus.ACTIVE);
         User savedUser = userRepository.save(user);
+        userCache.evict(savedUser.getUsername());
+        revocationRegistry.restore(savedUser.getUsername());
         return userMapper.toUserResponse(savedUser);
     }
 }
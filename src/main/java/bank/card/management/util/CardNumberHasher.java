@@ -0,0 +1,56 @@
+package bank.card.management.util;
+
+import bank.card.management.config.EncryptionProperties;
+import bank.card.management.exception.EncryptionException;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+// Blind index: HMAC-SHA256 от нормализованного номера карты. Детерминирован, поэтому по нему работает
+// уникальный B-tree индекс, но без ключа не позволяет перебрать номера по словарю BIN-ов
+@Component
+public class CardNumberHasher {
+    
+    private static final String ALGORITHM = "HmacSHA256";
+    
+    // Инициализированный прототип; clone() дешевле Mac.getInstance + init и не требует синхронизации
+    private final Mac prototype;
+    
+    public CardNumberHasher(EncryptionProperties properties) {
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(
+                    properties.getBlindIndexKey().getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new EncryptionException("Error initializing card number hashing", e);
+        }
+    }
+    
+    public String hash(String cardNumber) {
+        byte[] digits = normalize(cardNumber);
+        try {
+            Mac mac = (Mac) prototype.clone();
+            return HexFormat.of().formatHex(mac.doFinal(digits));
+        } catch (CloneNotSupportedException e) {
+            throw new EncryptionException("Error hashing card number", e);
+        }
+    }
+    
+    // Пробелы и дефисы не должны давать разные хэши для одного номера
+    private static byte[] normalize(String cardNumber) {
+        byte[] digits = new byte[cardNumber.length()];
+        int length = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits[length++] = (byte) c;
+            }
+        }
+        return length == digits.length ? digits : Arrays.copyOf(digits, length);
+    }
+}
@@ -4,56 +4,162 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class CardNumberMasker {
-    
-    private static final String MASK_CHAR = "*";
+
+    private static final char MASK_CHAR = '*';
     private static final int VISIBLE_DIGITS = 4;
+    private static final int GROUP_SIZE = 4;
+
+    // Готовые префиксы "**** **** **** " для номеров до 19 цифр (максимальная длина PAN по ISO/IEC 7812)
+    private static final String[] MASK_PREFIXES = new String[19 - VISIBLE_DIGITS + 1];
+
+    static {
+        for (int maskedDigits = 0; maskedDigits < MASK_PREFIXES.length; maskedDigits++) {
+            MASK_PREFIXES[maskedDigits] = buildMaskPrefix(maskedDigits);
+        }
+    }
+
+    // Результат сканирования упакован в long, чтобы проход по номеру ничего не выделял в куче:
+    // биты 0-15 — последние четыре цифры (по 4 бита, младшие — самая правая),
+    // биты 16-31 — число цифр (с насыщением), биты 32-35 — контрольная сумма Луна по модулю 10
+    private static final int COUNT_SHIFT = 16;
+    private static final int LUHN_SHIFT = 32;
+    private static final int MAX_COUNT = 0xFFFF;
+
+    public record MaskedCardNumber(String masked, boolean luhnValid) {
+    }
 
     public String maskCardNumber(String cardNumber) {
+        return maskCardNumber((CharSequence) cardNumber);
+    }
+
+    public String maskCardNumber(CharSequence cardNumber) {
         if (cardNumber == null || cardNumber.length() < VISIBLE_DIGITS) {
-            return cardNumber;
-        }
-        
-        // Удаляем все пробелы и нецифровые символы
-        String cleaned = cardNumber.replaceAll("[^0-9]", "");
-        
-        if (cleaned.length() < VISIBLE_DIGITS) {
-            return cardNumber;
-        }
-        
-        String lastFour = cleaned.substring(cleaned.length() - VISIBLE_DIGITS);
-        
-        int totalDigits = cleaned.length();
-        int maskedDigits = totalDigits - VISIBLE_DIGITS;
-        
-        StringBuilder masked = new StringBuilder();
-        int position = 0;
-        
-        while (position < maskedDigits) {
-            if (masked.length() > 0) {
-                masked.append(" ");
-            }
-            int groupSize = Math.min(4, maskedDigits - position);
-            masked.append(MASK_CHAR.repeat(groupSize));
-            position += groupSize;
+            return cardNumber == null ? null : cardNumber.toString();
+        }
+        return mask(scan(cardNumber), cardNumber);
+    }
+
+    public String maskCardNumber(char[] cardNumber) {
+        if (cardNumber == null || cardNumber.length < VISIBLE_DIGITS) {
+            return cardNumber == null ? null : new String(cardNumber);
         }
-        
-        if (masked.length() > 0) {
-            masked.append(" ");
+        long state = scan(cardNumber);
+        return digitCount(state) < VISIBLE_DIGITS ? new String(cardNumber) : mask(state, null);
+    }
+
+    // Маска и проверка Луна за один проход; для импорта, где номер нужно и отклонить, и замаскировать
+    public MaskedCardNumber maskAndValidate(CharSequence cardNumber) {
+        if (cardNumber == null) {
+            return new MaskedCardNumber(null, false);
         }
-        masked.append(lastFour);
-        
-        return masked.toString();
+        long state = scan(cardNumber);
+        String masked = cardNumber.length() < VISIBLE_DIGITS ? cardNumber.toString() : mask(state, cardNumber);
+        return new MaskedCardNumber(masked, isLuhnValid(state));
+    }
+
+    public boolean isValidLuhn(CharSequence cardNumber) {
+        return cardNumber != null && isLuhnValid(scan(cardNumber));
     }
 
     public String getLastFourDigits(String cardNumber) {
+        return getLastFourDigits((CharSequence) cardNumber);
+    }
+
+    public String getLastFourDigits(CharSequence cardNumber) {
         if (cardNumber == null) {
             return "";
         }
-        String cleaned = cardNumber.replaceAll("[^0-9]", "");
-        if (cleaned.length() < VISIBLE_DIGITS) {
-            return cleaned;
+        long state = scan(cardNumber);
+        int count = digitCount(state);
+        if (count >= VISIBLE_DIGITS) {
+            return "" + digit(state, 3) + digit(state, 2) + digit(state, 1) + digit(state, 0);
         }
-        return cleaned.substring(cleaned.length() - VISIBLE_DIGITS);
+        // Цифр меньше четырёх: возвращаем все, что есть
+        char[] digits = new char[count];
+        for (int i = 0; i < count; i++) {
+            digits[i] = digit(state, count - 1 - i);
+        }
+        return new String(digits);
+    }
+
+    // Меньше четырёх цифр — возвращаем исходную строку, как и прежде
+    private static String mask(long state, CharSequence original) {
+        int count = digitCount(state);
+        if (count < VISIBLE_DIGITS) {
+            return original.toString();
+        }
+        int maskedDigits = count - VISIBLE_DIGITS;
+        String prefix = maskedDigits < MASK_PREFIXES.length
+                ? MASK_PREFIXES[maskedDigits]
+                : buildMaskPrefix(maskedDigits);
+        // Конкатенация через invokedynamic считает точную длину и выделяет только массив результата
+        return prefix + digit(state, 3) + digit(state, 2) + digit(state, 1) + digit(state, 0);
+    }
+
+    // Проход справа налево: последние четыре цифры и удвоение Луна определяются позицией от конца
+    private static long scan(CharSequence cardNumber) {
+        long state = 0;
+        for (int i = cardNumber.length() - 1; i >= 0; i--) {
+            state = accept(state, cardNumber.charAt(i));
+        }
+        return state;
+    }
+
+    private static long scan(char[] cardNumber) {
+        long state = 0;
+        for (int i = cardNumber.length - 1; i >= 0; i--) {
+            state = accept(state, cardNumber[i]);
+        }
+        return state;
+    }
+
+    private static long accept(long state, char c) {
+        if (c < '0' || c > '9') {
+            return state;
+        }
+        int value = c - '0';
+        int count = digitCount(state);
+        if (count < VISIBLE_DIGITS) {
+            state |= (long) value << (count * 4);
+        }
+        int luhnDigit = (count & 1) == 1 ? value * 2 - (value >= 5 ? 9 : 0) : value;
+        int luhnSum = (int) (state >>> LUHN_SHIFT) & 0xF;
+        luhnSum = (luhnSum + luhnDigit) % 10;
+        int nextCount = Math.min(count + 1, MAX_COUNT);
+        return (state & 0xFFFFL)
+                | ((long) nextCount << COUNT_SHIFT)
+                | ((long) luhnSum << LUHN_SHIFT);
     }
-}
 
+    private static int digitCount(long state) {
+        return (int) (state >>> COUNT_SHIFT) & MAX_COUNT;
+    }
+
+    // Позиция 0 — самая правая цифра
+    private static char digit(long state, int position) {
+        return (char) ('0' + ((state >>> (position * 4)) & 0xF));
+    }
+
+    // Номер короче 12 цифр не бывает PAN даже при верной сумме
+    private static boolean isLuhnValid(long state) {
+        int count = digitCount(state);
+        return count >= 12 && count <= 19 && ((state >>> LUHN_SHIFT) & 0xF) == 0;
+    }
+
+    private static String buildMaskPrefix(int maskedDigits) {
+        if (maskedDigits == 0) {
+            return "";
+        }
+        int groups = (maskedDigits + GROUP_SIZE - 1) / GROUP_SIZE;
+        char[] prefix = new char[maskedDigits + groups];
+        int out = 0;
+        for (int position = 0; position < maskedDigits; position++) {
+            if (position > 0 && position % GROUP_SIZE == 0) {
+                prefix[out++] = ' ';
+            }
+            prefix[out++] = MASK_CHAR;
+        }
+        prefix[out] = ' ';
+        return new String(prefix);
+    }
+}
@@ -0,0 +1,41 @@
+package bank.card.management.util;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Пул вместо ThreadLocal: виртуальных потоков может быть миллионы, и у каждого был бы свой Cipher.
+// Cipher не потокобезопасен, поэтому экземпляр принадлежит одному вызывающему от acquire до release
+class CipherPool {
+    
+    private final String transformation;
+    private final int maxIdle;
+    private final Queue<Cipher> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    
+    CipherPool(String transformation, int maxIdle) {
+        this.transformation = transformation;
+        this.maxIdle = maxIdle;
+    }
+    
+    Cipher acquire() throws NoSuchAlgorithmException, NoSuchPaddingException {
+        Cipher cipher = idle.poll();
+        if (cipher != null) {
+            idleCount.decrementAndGet();
+            return cipher;
+        }
+        return Cipher.getInstance(transformation);
+    }
+    
+    // Вызывающий всегда заново вызывает init, поэтому состояние после ошибки doFinal не переносится
+    void release(Cipher cipher) {
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(cipher);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
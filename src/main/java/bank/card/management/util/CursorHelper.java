@@ -0,0 +1,99 @@
+package bank.card.management.util;
+
+import bank.card.management.dto.response.CursorPageResponse;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Keyset-пагинация: курсор хранит (sortBy, id, значение sortBy) последней строки страницы,
+// и следующая страница начинается с WHERE (sortBy, id) < (:value, :id) вместо OFFSET.
+// Для клиента курсор непрозрачен (Base64url), но не подписан: он задаёт только позицию, а не права доступа
+public final class CursorHelper {
+    
+    private static final String ID = "id";
+    private static final String SEPARATOR = "|";
+    
+    // Сортировать по курсору можно только по NOT NULL полям, тип которых известен для разбора курсора
+    public static final Map<String, Function<String, Object>> CARD_SORT_KEYS = Map.of(
+            ID, Long::valueOf,
+            "createdAt", LocalDateTime::parse,
+            "expiryDate", LocalDate::parse,
+            "balance", BigDecimal::new,
+            "owner", value -> value);
+    
+    public static final Map<String, Function<String, Object>> USER_SORT_KEYS = Map.of(
+            ID, Long::valueOf,
+            "createdAt", LocalDateTime::parse,
+            "username", value -> value);
+    
+    private CursorHelper() {
+    }
+    
+    // id добавляется вторым ключом, чтобы порядок был строгим при одинаковых значениях sortBy
+    public static Sort createSort(String sortBy, Map<String, Function<String, Object>> sortKeys) {
+        String sortField = resolveSortField(sortBy, sortKeys);
+        Sort sort = Sort.by(sortField).descending();
+        return ID.equals(sortField) ? sort : sort.and(Sort.by(ID).descending());
+    }
+    
+    public static ScrollPosition decode(String cursor, String sortBy,
+                                        Map<String, Function<String, Object>> sortKeys) {
+        String sortField = resolveSortField(sortBy, sortKeys);
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, 3);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (parts.length != 3 || !parts[0].equals(sortField)) {
+            throw new IllegalArgumentException("Cursor does not match sort field " + sortField);
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            keys.put(sortField, sortKeys.get(sortField).apply(parts[2]));
+            keys.put(ID, Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return ScrollPosition.forward(keys);
+    }
+    
+    public static String encode(String sortField, Object sortValue, Long id) {
+        String raw = sortField + SEPARATOR + id + SEPARATOR + sortValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static <E, R> CursorPageResponse<R> toResponse(Window<E> window, String sortBy,
+                                                          Map<String, Function<String, Object>> sortKeys,
+                                                          Function<E, R> mapper) {
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            String sortField = resolveSortField(sortBy, sortKeys);
+            Map<String, Object> keys = ((KeysetScrollPosition) window.positionAt(window.size() - 1)).getKeys();
+            nextCursor = encode(sortField, keys.get(sortField), (Long) keys.get(ID));
+        }
+        return new CursorPageResponse<>(window.map(mapper).getContent(), window.size(), window.hasNext(), nextCursor);
+    }
+    
+    private static String resolveSortField(String sortBy, Map<String, Function<String, Object>> sortKeys) {
+        String sortField = sortBy != null && !sortBy.trim().isEmpty() ? sortBy : ID;
+        if (!sortKeys.containsKey(sortField)) {
+            throw new IllegalArgumentException("Unsupported sort field for cursor pagination: " + sortField);
+        }
+        return sortField;
+    }
+}
@@ -1,52 +1,234 @@
 package bank.card.management.util;
 
+import bank.card.management.config.EncryptionProperties;
 import bank.card.management.exception.EncryptionException;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
 
+// Формат шифртекста: "v{версия}:" + Base64(IV || ciphertext || tag) для строк
+// и [версия][IV][ciphertext || tag] для массивов байт. Строки без заголовка — прежний AES/ECB
 @Component
 public class EncryptionUtil {
     
     private static final String ALGORITHM = "AES";
-    private final SecretKeySpec secretKey;
+    private static final String GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final String VERSION_PREFIX = "v";
+    private static final char VERSION_SEPARATOR = ':';
     
-    public EncryptionUtil(@Value("${encryption.secret:bank-card-secret-key-2024-minimum-32-characters}") String secret) {
+    private final Map<Integer, SecretKeySpec> keyRing;
+    private final int activeVersion;
+    private final SecretKeySpec legacyKey;
+    private final String activePrefix;
+    private final SecureRandom random = new SecureRandom();
+    private final CipherPool gcmPool = new CipherPool(GCM_TRANSFORMATION, Runtime.getRuntime().availableProcessors() * 2);
+    private final CipherPool legacyPool = new CipherPool(ALGORITHM, Runtime.getRuntime().availableProcessors());
+    
+    @Autowired
+    public EncryptionUtil(EncryptionProperties properties) {
+        Map<Integer, String> secrets = properties.getKeyRing().isEmpty()
+                ? Map.of(1, properties.getSecret())
+                : properties.getKeyRing();
+        Map<Integer, SecretKeySpec> keys = new HashMap<>();
+        secrets.forEach((version, secret) -> {
+            if (version < 1 || version > 255) {
+                throw new EncryptionException("Key version must be between 1 and 255: " + version);
+            }
+            keys.put(version, deriveKey(secret));
+        });
+        if (!keys.containsKey(properties.getActiveKeyVersion())) {
+            throw new EncryptionException("Active key version " + properties.getActiveKeyVersion()
+                    + " is missing from the key ring");
+        }
+        this.keyRing = Map.copyOf(keys);
+        this.activeVersion = properties.getActiveKeyVersion();
+        this.legacyKey = deriveKey(properties.getSecret());
+        this.activePrefix = VERSION_PREFIX + activeVersion + VERSION_SEPARATOR;
+    }
+    
+    public EncryptionUtil(String secret) {
+        this(propertiesFor(secret));
+    }
+    
+    public String encrypt(String plainText) {
+        byte[] encrypted = encryptWithActiveKey(plainText.getBytes(StandardCharsets.UTF_8));
+        return activePrefix + Base64.getEncoder().encodeToString(encrypted);
+    }
+    
+    public String decrypt(String encryptedText) {
+        int version = parseVersion(encryptedText);
         try {
-            MessageDigest sha = MessageDigest.getInstance("SHA-256");
-            byte[] key = sha.digest(secret.getBytes(StandardCharsets.UTF_8));
-            this.secretKey = new SecretKeySpec(key, ALGORITHM);
+            if (version == 0) {
+                byte[] decoded = Base64.getDecoder().decode(encryptedText);
+                return new String(decryptLegacy(decoded), StandardCharsets.UTF_8);
+            }
+            String payload = encryptedText.substring(encryptedText.indexOf(VERSION_SEPARATOR) + 1);
+            byte[] decoded = Base64.getDecoder().decode(payload);
+            return new String(decryptGcm(version, decoded, 0), StandardCharsets.UTF_8);
+        } catch (EncryptionException e) {
+            throw e;
         } catch (Exception e) {
-            throw new EncryptionException("Error initializing encryption", e);
+            throw new EncryptionException("Error decrypting data", e);
         }
     }
     
-    public String encrypt(String plainText) {
+    public byte[] encrypt(byte[] plain) {
+        byte[] encrypted = encryptWithActiveKey(plain);
+        return ByteBuffer.allocate(1 + encrypted.length)
+                .put((byte) activeVersion)
+                .put(encrypted)
+                .array();
+    }
+    
+    public byte[] decrypt(byte[] encrypted) {
+        if (encrypted.length < 1 + IV_LENGTH) {
+            throw new EncryptionException("Error decrypting data");
+        }
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            byte[] encrypted = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(encrypted);
+            return decryptGcm(Byte.toUnsignedInt(encrypted[0]), encrypted, 1);
+        } catch (EncryptionException e) {
+            throw e;
         } catch (Exception e) {
+            throw new EncryptionException("Error decrypting data", e);
+        }
+    }
+    
+    // Шифртекст в прежнем формате или под неактивной версией ключа подлежит перешифрованию
+    public boolean needsReencryption(String encryptedText) {
+        return !encryptedText.startsWith(activePrefix);
+    }
+    
+    public boolean needsReencryption(byte[] encrypted) {
+        return encrypted.length == 0 || Byte.toUnsignedInt(encrypted[0]) != activeVersion;
+    }
+    
+    public String reencrypt(String encryptedText) {
+        return encrypt(decrypt(encryptedText));
+    }
+    
+    public byte[] reencrypt(byte[] encrypted) {
+        return encrypt(decrypt(encrypted));
+    }
+    
+    // Строковый шифртекст в двоичный формат. "v{версия}:" отличается от двоичного только кодировкой,
+    // поэтому достаточно декодировать Base64 без расшифровки; прежний AES/ECB перешифровывается активным ключом
+    public byte[] toBinary(String encryptedText) {
+        int version = parseVersion(encryptedText);
+        if (version == 0) {
+            return encrypt(decrypt(encryptedText).getBytes(StandardCharsets.UTF_8));
+        }
+        if (version > 255) {
+            throw new EncryptionException("Unknown encryption key version: " + version);
+        }
+        byte[] decoded;
+        try {
+            decoded = Base64.getDecoder().decode(encryptedText.substring(encryptedText.indexOf(VERSION_SEPARATOR) + 1));
+        } catch (IllegalArgumentException e) {
+            throw new EncryptionException("Error decrypting data", e);
+        }
+        return ByteBuffer.allocate(1 + decoded.length)
+                .put((byte) version)
+                .put(decoded)
+                .array();
+    }
+    
+    public String getActivePrefix() {
+        return activePrefix;
+    }
+    
+    public int getActiveVersion() {
+        return activeVersion;
+    }
+    
+    private byte[] encryptWithActiveKey(byte[] plain) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = gcmPool.acquire();
+            try {
+                cipher.init(Cipher.ENCRYPT_MODE, keyRing.get(activeVersion), new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+                byte[] output = new byte[IV_LENGTH + cipher.getOutputSize(plain.length)];
+                System.arraycopy(iv, 0, output, 0, IV_LENGTH);
+                cipher.doFinal(plain, 0, plain.length, output, IV_LENGTH);
+                return output;
+            } finally {
+                gcmPool.release(cipher);
+            }
+        } catch (GeneralSecurityException e) {
             throw new EncryptionException("Error encrypting data", e);
         }
     }
     
-    public String decrypt(String encryptedText) {
+    private byte[] decryptGcm(int version, byte[] input, int offset) throws GeneralSecurityException {
+        SecretKeySpec key = keyRing.get(version);
+        if (key == null) {
+            throw new EncryptionException("Unknown encryption key version: " + version);
+        }
+        Cipher cipher = gcmPool.acquire();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, input, offset, IV_LENGTH));
+            return cipher.doFinal(input, offset + IV_LENGTH, input.length - offset - IV_LENGTH);
+        } finally {
+            gcmPool.release(cipher);
+        }
+    }
+    
+    private byte[] decryptLegacy(byte[] input) throws GeneralSecurityException {
+        Cipher cipher = legacyPool.acquire();
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-            byte[] decoded = Base64.getDecoder().decode(encryptedText);
-            byte[] decrypted = cipher.doFinal(decoded);
-            return new String(decrypted, StandardCharsets.UTF_8);
+            cipher.init(Cipher.DECRYPT_MODE, legacyKey);
+            return cipher.doFinal(input);
+        } finally {
+            legacyPool.release(cipher);
+        }
+    }
+    
+    // 0 — прежний формат без заголовка; в алфавите Base64 нет ':', поэтому "v<цифры>:" однозначен
+    private static int parseVersion(String encryptedText) {
+        if (!encryptedText.startsWith(VERSION_PREFIX)) {
+            return 0;
+        }
+        int separator = encryptedText.indexOf(VERSION_SEPARATOR);
+        if (separator <= VERSION_PREFIX.length()) {
+            return 0;
+        }
+        int version = 0;
+        for (int i = VERSION_PREFIX.length(); i < separator; i++) {
+            char c = encryptedText.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            version = version * 10 + (c - '0');
+        }
+        return version;
+    }
+    
+    private static SecretKeySpec deriveKey(String secret) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] key = sha.digest(secret.getBytes(StandardCharsets.UTF_8));
+            return new SecretKeySpec(key, ALGORITHM);
         } catch (Exception e) {
-            throw new EncryptionException("Error decrypting data", e);
+            throw new EncryptionException("Error initializing encryption", e);
         }
     }
+    
+    private static EncryptionProperties propertiesFor(String secret) {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setSecret(secret);
+        return properties;
+    }
 }
-
@@ -4,6 +4,9 @@ public class JwtConstants {
     
     public static final String BEARER_PREFIX = "Bearer ";
     public static final String BEARER_TYPE = "Bearer";
+    public static final String AUTHORITIES_CLAIM = "authorities";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String STATUS_CLAIM = "status";
     
     private JwtConstants() {
     }
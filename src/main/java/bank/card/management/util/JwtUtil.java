@@ -1,8 +1,10 @@
 package bank.card.management.util;
 
+import bank.card.management.entity.UserStatus;
 import bank.card.management.exception.JwtTokenException;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -23,8 +25,16 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}") // 24 hours
     private Long expiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    // Ключ и парсер неизменяемы и потокобезопасны, поэтому создаются один раз при старте
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
     
     public String extractUsername(String token) {
@@ -36,17 +46,14 @@ public class JwtUtil {
     }
     
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseToken(token);
         return claimsResolver.apply(claims);
     }
     
-    private Claims extractAllClaims(String token) {
+    // Единственная проверка подписи и срока действия: результат переиспользуется вызывающим кодом
+    public Claims parseToken(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return parser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
             throw new JwtTokenException("JWT token has expired", e);
         } catch (JwtException e) {
@@ -56,15 +63,21 @@ public class JwtUtil {
         }
     }
     
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails, null);
     }
     
-    public String generateToken(UserDetails userDetails) {
+    // id и статус пользователя позволяют фильтру аутентифицировать запрос по claims без обращения к БД
+    public String generateToken(UserDetails userDetails, Long userId) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("authorities", userDetails.getAuthorities().stream()
+        claims.put(JwtConstants.AUTHORITIES_CLAIM, userDetails.getAuthorities().stream()
                 .map(authority -> authority.getAuthority())
                 .toList());
+        if (userId != null) {
+            claims.put(JwtConstants.USER_ID_CLAIM, userId);
+        }
+        claims.put(JwtConstants.STATUS_CLAIM,
+                userDetails.isEnabled() ? UserStatus.ACTIVE.name() : UserStatus.BLOCKED.name());
         return createToken(claims, userDetails.getUsername());
     }
     
@@ -74,13 +87,16 @@ public class JwtUtil {
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateClaims(parseToken(token), userDetails);
+    }
+    
+    public Boolean validateClaims(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && claims.getExpiration().after(new Date());
     }
 }
 
@@ -0,0 +1,82 @@
+package bank.card.management.benchmark;
+
+import bank.card.management.util.CardNumberMasker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// ops/s и gc.alloc.rate.norm (байт на вызов): прежняя маскировка через replaceAll/repeat/StringBuilder
+// против однопроходного сканирования. Для maskCardNumber ожидается ровно размер результата
+// (String + byte[] ≈ 56 байт при compact strings), для isValidLuhn — 0.
+// Запуск: mvn test-compile exec:java -Dexec.classpathScope=test
+//         -Dexec.mainClass=bank.card.management.benchmark.CardNumberMaskerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardNumberMaskerBenchmark {
+    
+    @Param({"4276123456789012", "4276 1234 5678 9012"})
+    private String pan;
+    
+    private CardNumberMasker masker;
+    private char[] panChars;
+    
+    @Setup
+    public void setUp() {
+        masker = new CardNumberMasker();
+        panChars = pan.toCharArray();
+    }
+    
+    @Benchmark
+    public String legacyMask() {
+        String cleaned = pan.replaceAll("[^0-9]", "");
+        String lastFour = cleaned.substring(cleaned.length() - 4);
+        int maskedDigits = cleaned.length() - 4;
+        StringBuilder masked = new StringBuilder();
+        int position = 0;
+        while (position < maskedDigits) {
+            if (masked.length() > 0) {
+                masked.append(" ");
+            }
+            int groupSize = Math.min(4, maskedDigits - position);
+            masked.append("*".repeat(groupSize));
+            position += groupSize;
+        }
+        masked.append(" ").append(lastFour);
+        return masked.toString();
+    }
+    
+    @Benchmark
+    public String mask() {
+        return masker.maskCardNumber(pan);
+    }
+    
+    @Benchmark
+    public String maskCharArray() {
+        return masker.maskCardNumber(panChars);
+    }
+    
+    @Benchmark
+    public String lastFourDigits() {
+        return masker.getLastFourDigits(pan);
+    }
+    
+    @Benchmark
+    public boolean luhn() {
+        return masker.isValidLuhn(pan);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CardNumberMaskerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package bank.card.management.benchmark;
+
+import bank.card.management.security.VerifiedTokenCache;
+import bank.card.management.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// 10k одновременно активных токенов, запросы распределены между ними равномерно.
+// Запуск: mvn test-compile exec:java -Dexec.classpathScope=test
+//         -Dexec.mainClass=bank.card.management.benchmark.VerifiedTokenCacheBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class VerifiedTokenCacheBenchmark {
+    
+    private static final int ACTIVE_TOKENS = 10_000;
+    
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
+    private String[] tokens;
+    
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret",
+                "bank-card-management-secret-key-for-jwt-token-generation-2024-minimum-256-bits");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        jwtUtil.init();
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtil, new SimpleMeterRegistry(), 50_000);
+        
+        tokens = new String[ACTIVE_TOKENS];
+        for (int i = 0; i < ACTIVE_TOKENS; i++) {
+            tokens[i] = jwtUtil.generateToken(User.builder()
+                    .username("user-" + i)
+                    .password("")
+                    .authorities(List.of(new SimpleGrantedAuthority("ROLE_USER")))
+                    .build(), (long) i);
+        }
+    }
+    
+    @Benchmark
+    public Claims parseEveryRequest() {
+        return jwtUtil.parseToken(nextToken());
+    }
+    
+    @Benchmark
+    public Claims verifiedTokenCache() {
+        return verifiedTokenCache.verify(nextToken());
+    }
+    
+    private String nextToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(ACTIVE_TOKENS)];
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VerifiedTokenCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,81 @@
+package bank.card.management.cache;
+
+import bank.card.management.entity.Role;
+import bank.card.management.entity.User;
+import bank.card.management.entity.UserStatus;
+import bank.card.management.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCacheTest {
+    
+    @Mock
+    private UserRepository userRepository;
+    
+    private SimpleMeterRegistry meterRegistry;
+    private UserCache userCache;
+    private User testUser;
+    
+    @BeforeEach
+    void setUp() {
+        Role role = new Role();
+        role.setName(Role.RoleName.USER);
+        
+        testUser = new User();
+        testUser.setId(1L);
+        testUser.setUsername("testuser");
+        testUser.setStatus(UserStatus.ACTIVE);
+        testUser.setRoles(Set.of(role));
+        
+        meterRegistry = new SimpleMeterRegistry();
+        userCache = new UserCache(userRepository, meterRegistry, Duration.ofMinutes(1), 100);
+    }
+    
+    @Test
+    void testGet_LoadsOnceAndServesRepeatedLookupsFromCache() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        
+        CachedUser first = userCache.get("testuser");
+        CachedUser second = userCache.get("testuser");
+        
+        assertSame(first, second);
+        assertEquals(1L, first.id());
+        assertEquals(UserStatus.ACTIVE, first.status());
+        assertEquals(List.of("ROLE_USER"), first.authorities());
+        verify(userRepository, times(1)).findByUsername("testuser");
+        assertEquals(1.0, meterRegistry.get("user.cache.queries.saved").functionCounter().count());
+    }
+    
+    @Test
+    void testGet_UserNotFound() {
+        when(userRepository.findByUsername("missing")).thenReturn(Optional.empty());
+        
+        assertThrows(UsernameNotFoundException.class, () -> userCache.get("missing"));
+    }
+    
+    @Test
+    void testEvict_ReloadsUserOnNextLookup() {
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        userCache.get("testuser");
+        
+        testUser.setStatus(UserStatus.BLOCKED);
+        userCache.evict("testuser");
+        
+        assertEquals(UserStatus.BLOCKED, userCache.get("testuser").status());
+        verify(userRepository, times(2)).findByUsername("testuser");
+    }
+}
@@ -0,0 +1,93 @@
+package bank.card.management.job;
+
+import bank.card.management.config.CardExpiryProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardExpiryJobTest {
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @Mock
+    private Connection connection;
+    
+    @Mock
+    private PreparedStatement statement;
+    
+    @Mock
+    private ResultSet resultSet;
+    
+    private CardExpiryProperties properties;
+    private CardExpiryJob job;
+    
+    @BeforeEach
+    void setUp() {
+        properties = new CardExpiryProperties();
+        properties.setEnabled(true);
+        properties.setBatchSize(2);
+        
+        job = new CardExpiryJob(jdbcTemplate, properties);
+    }
+    
+    @Test
+    void testExpireAll_UpdatesIdRangesUntilNoExpiredCardsLeft() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(0L), eq(2)))
+                .thenReturn(7L);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(7L), eq(2)))
+                .thenReturn(12L);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(12L), eq(2)))
+                .thenReturn(null);
+        when(jdbcTemplate.update(startsWith("UPDATE bank_cards"), eq(0L), eq(7L))).thenReturn(2);
+        when(jdbcTemplate.update(startsWith("UPDATE bank_cards"), eq(7L), eq(12L))).thenReturn(1);
+        
+        long expired = job.expireAll();
+        
+        assertEquals(3, expired);
+        verify(jdbcTemplate, times(2)).update(anyString(), any(Object[].class));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRun_SkipsWhenAdvisoryLockIsHeldElsewhere() throws Exception {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> ((ConnectionCallback<Long>) invocation.getArgument(0))
+                        .doInConnection(connection));
+        when(connection.prepareStatement(startsWith("SELECT pg_try_advisory_lock"))).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getBoolean(1)).thenReturn(false);
+        
+        job.run();
+        
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class), any(Object[].class));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verify(connection, never()).prepareStatement(startsWith("SELECT pg_advisory_unlock"));
+    }
+    
+    @Test
+    void testRun_DisabledDoesNothing() {
+        properties.setEnabled(false);
+        
+        job.run();
+        
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
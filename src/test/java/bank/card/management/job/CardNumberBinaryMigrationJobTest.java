@@ -0,0 +1,102 @@
+package bank.card.management.job;
+
+import bank.card.management.config.EncryptionProperties;
+import bank.card.management.util.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberBinaryMigrationJobTest {
+    
+    private static final String SECRET = "test-secret-key-2024-minimum-32-characters-for-aes";
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    private EncryptionProperties properties;
+    private EncryptionUtil encryptionUtil;
+    private CardNumberBinaryMigrationJob job;
+    
+    @BeforeEach
+    void setUp() {
+        properties = new EncryptionProperties();
+        properties.setSecret(SECRET);
+        properties.getBinaryMigration().setEnabled(true);
+        properties.getBinaryMigration().setBatchSize(2);
+        
+        encryptionUtil = new EncryptionUtil(properties);
+        job = new CardNumberBinaryMigrationJob(jdbcTemplate, encryptionUtil, properties);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMigrate_ConvertsVersionedAndLegacyRowsWithCompareAndSet() throws Exception {
+        String versioned = encryptionUtil.encrypt("1111222233334444");
+        String legacy = encryptLegacy("5555666677778888");
+        
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(0L), eq(2)))
+                .thenReturn(List.of(new Object[] {1L, versioned}, new Object[] {3L, legacy}));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(3L), eq(2)))
+                .thenReturn(List.<Object[]>of(new Object[] {7L, "not-a-ciphertext"}));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(7L), eq(2)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.batchUpdate(anyString(), any(List.class))).thenReturn(new int[] {1, 1});
+        
+        long updated = job.migrate();
+        
+        assertEquals(2, updated);
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        // Чанк только из нерасшифровываемой строки в базу не уходит
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), captor.capture());
+        List<Object[]> batch = captor.getValue();
+        assertEquals(2, batch.size());
+        
+        byte[] first = (byte[]) batch.get(0)[0];
+        byte[] payload = Base64.getDecoder().decode(versioned.substring("v1:".length()));
+        assertEquals(1, first[0]);
+        assertArrayEquals(payload, Arrays.copyOfRange(first, 1, first.length));
+        assertEquals(1L, batch.get(0)[1]);
+        assertEquals(versioned, batch.get(0)[2]);
+        
+        byte[] second = (byte[]) batch.get(1)[0];
+        assertEquals("5555666677778888", new String(encryptionUtil.decrypt(second), StandardCharsets.UTF_8));
+        assertEquals(3L, batch.get(1)[1]);
+        assertEquals(legacy, batch.get(1)[2]);
+    }
+    
+    @Test
+    void testRun_DisabledDoesNothing() {
+        properties.getBinaryMigration().setEnabled(false);
+        
+        job.run();
+        
+        verifyNoInteractions(jdbcTemplate);
+    }
+    
+    private static String encryptLegacy(String plainText) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(
+                MessageDigest.getInstance("SHA-256").digest(SECRET.getBytes(StandardCharsets.UTF_8)), "AES"));
+        return Base64.getEncoder().encodeToString(cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8)));
+    }
+}
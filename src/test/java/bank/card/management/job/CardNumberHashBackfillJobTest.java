@@ -0,0 +1,102 @@
+package bank.card.management.job;
+
+import bank.card.management.config.EncryptionProperties;
+import bank.card.management.util.CardNumberHasher;
+import bank.card.management.util.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberHashBackfillJobTest {
+    
+    private static final String SECRET = "test-secret-key-2024-minimum-32-characters-for-aes";
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    private EncryptionProperties properties;
+    private EncryptionUtil encryptionUtil;
+    private CardNumberHasher cardNumberHasher;
+    private CardNumberHashBackfillJob job;
+    
+    @BeforeEach
+    void setUp() {
+        properties = new EncryptionProperties();
+        properties.setSecret(SECRET);
+        properties.getBlindIndexBackfill().setEnabled(true);
+        properties.getBlindIndexBackfill().setBatchSize(2);
+        
+        encryptionUtil = new EncryptionUtil(properties);
+        cardNumberHasher = new CardNumberHasher(properties);
+        job = new CardNumberHashBackfillJob(jdbcTemplate, encryptionUtil, cardNumberHasher, properties);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBackfill_WalksChunksByIdAndStoresHashes() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(0L), eq(2)))
+                .thenReturn(List.of(new Object[] {1L, encryptionUtil.encrypt("1111222233334444"), null},
+                        new Object[] {4L, null,
+                                encryptionUtil.encrypt("5555666677778888".getBytes(StandardCharsets.UTF_8))}));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(4L), eq(2)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.batchUpdate(anyString(), any(List.class))).thenReturn(new int[] {1, 1});
+        
+        long updated = job.backfill();
+        
+        assertEquals(2, updated);
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        Object[] first = captor.getValue().get(0);
+        assertEquals(cardNumberHasher.hash("1111222233334444"), first[0]);
+        assertEquals(1L, first[1]);
+        Object[] second = captor.getValue().get(1);
+        assertEquals(cardNumberHasher.hash("5555666677778888"), second[0]);
+        assertEquals(4L, second[1]);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBackfill_DuplicateNumberLeavesOnlyThatRowEmpty() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(0L), eq(2)))
+                .thenReturn(List.of(new Object[] {1L, encryptionUtil.encrypt("1111222233334444"), null},
+                        new Object[] {2L, encryptionUtil.encrypt("1111222233334444"), null}));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(2L), eq(2)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.batchUpdate(anyString(), any(List.class)))
+                .thenThrow(new DuplicateKeyException("idx_bank_cards_card_number_hash"));
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenReturn(1)
+                .thenThrow(new DuplicateKeyException("idx_bank_cards_card_number_hash"));
+        
+        long updated = job.backfill();
+        
+        assertEquals(1, updated);
+        verify(jdbcTemplate, times(2)).update(anyString(), any(Object[].class));
+    }
+    
+    @Test
+    void testRun_DisabledDoesNothing() {
+        properties.getBlindIndexBackfill().setEnabled(false);
+        
+        job.run();
+        
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
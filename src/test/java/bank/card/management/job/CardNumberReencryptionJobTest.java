@@ -0,0 +1,91 @@
+package bank.card.management.job;
+
+import bank.card.management.config.EncryptionProperties;
+import bank.card.management.util.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberReencryptionJobTest {
+    
+    private static final String OLD_SECRET = "old-secret-key-2024-minimum-32-characters-for-aes";
+    private static final String NEW_SECRET = "new-secret-key-2025-minimum-32-characters-for-aes";
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    private EncryptionProperties properties;
+    private EncryptionUtil oldEncryptionUtil;
+    private EncryptionUtil encryptionUtil;
+    private CardNumberReencryptionJob job;
+    
+    @BeforeEach
+    void setUp() {
+        oldEncryptionUtil = new EncryptionUtil(OLD_SECRET);
+        
+        properties = new EncryptionProperties();
+        properties.setSecret(OLD_SECRET);
+        properties.setKeyRing(Map.of(1, OLD_SECRET, 2, NEW_SECRET));
+        properties.setActiveKeyVersion(2);
+        properties.getReencryption().setEnabled(true);
+        properties.getReencryption().setBatchSize(2);
+        properties.getReencryption().setMaxRowsPerSecond(0);
+        
+        encryptionUtil = new EncryptionUtil(properties);
+        job = new CardNumberReencryptionJob(jdbcTemplate, encryptionUtil, properties);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReencryptAll_WalksChunksByIdAndUpdatesWithCompareAndSet() throws Exception {
+        byte[] first = oldEncryptionUtil.encrypt("1111222233334444".getBytes(StandardCharsets.UTF_8));
+        byte[] second = oldEncryptionUtil.encrypt("5555666677778888".getBytes(StandardCharsets.UTF_8));
+        byte[] third = oldEncryptionUtil.encrypt("9999000011112222".getBytes(StandardCharsets.UTF_8));
+        
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(0L), eq(2), eq(2)))
+                .thenReturn(List.of(new Object[] {1L, first}, new Object[] {5L, second}));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(5L), eq(2), eq(2)))
+                .thenReturn(List.<Object[]>of(new Object[] {9L, third}));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(9L), eq(2), eq(2)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.batchUpdate(anyString(), any(List.class)))
+                .thenReturn(new int[] {1, 1}, new int[] {0});
+        
+        long updated = job.reencryptAll();
+        
+        assertEquals(2, updated);
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), captor.capture());
+        Object[] firstUpdate = captor.getAllValues().get(0).get(0);
+        byte[] reencrypted = (byte[]) firstUpdate[0];
+        assertEquals(2, reencrypted[0]);
+        assertEquals("1111222233334444", new String(encryptionUtil.decrypt(reencrypted), StandardCharsets.UTF_8));
+        assertEquals(1L, firstUpdate[1]);
+        assertSame(first, firstUpdate[2]);
+    }
+    
+    @Test
+    void testRun_DisabledDoesNothing() {
+        properties.getReencryption().setEnabled(false);
+        
+        job.run();
+        
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -29,7 +29,7 @@ class CardResponseMapperTest {
         
         bankCard = new BankCard();
         bankCard.setId(1L);
-        bankCard.setCardNumber("encrypted123");
+        bankCard.setCardNumber(new byte[] {1, 2, 3});
         bankCard.setCardNumberMasked("**** **** **** 1234");
         bankCard.setOwner("John Doe");
         bankCard.setExpiryDate(LocalDate.now().plusYears(2));
@@ -0,0 +1,73 @@
+package bank.card.management.repository;
+
+import bank.card.management.entity.User;
+import bank.card.management.support.CardFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Регрессия планов из docs/query-plans.md: листинг и активные карты пользователя
+// читаются составными индексами без отдельной сортировки
+@SpringBootTest
+class CardAccessPathIndexTest {
+    
+    private static final int CARD_COUNT = 2000;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    private CardFixtures fixtures;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate);
+        user = fixtures.createUser("plans");
+        
+        fixtures.insertCards(user, CARD_COUNT, CardFixtures.BALANCE, 3);
+        // VACUUM обновляет visibility map, без неё Index Only Scan всё равно ходит в heap
+        jdbcTemplate.execute("VACUUM ANALYZE bank_cards");
+        jdbcTemplate.execute("VACUUM ANALYZE card_balances");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteUser(user);
+    }
+    
+    @Test
+    void testUserListingIsOrderedIndexScanWithoutSort() {
+        String plan = explain("SELECT c.id, c.card_number_masked, c.owner, c.expiry_date, c.status, b.balance " +
+                "FROM bank_cards c JOIN card_balances b ON b.card_id = c.id " +
+                "WHERE c.user_id = ? ORDER BY c.id DESC LIMIT 10", user.getId());
+        
+        assertTrue(plan.contains("Index Only Scan using idx_bank_cards_user_id_id"), plan);
+        assertFalse(plan.contains("Sort"), plan);
+    }
+    
+    @Test
+    void testActiveCardsUseUserStatusIndex() {
+        String plan = explain("SELECT c.id, c.card_number_masked, c.owner, c.expiry_date, b.balance " +
+                "FROM bank_cards c JOIN card_balances b ON b.card_id = c.id " +
+                "WHERE c.user_id = ? AND c.status = 'ACTIVE'", user.getId());
+        
+        assertTrue(plan.contains("idx_bank_cards_user_id_status"), plan);
+    }
+    
+    private String explain(String sql, Object... args) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            jdbcTemplate.execute("SET LOCAL enable_bitmapscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+        });
+    }
+}
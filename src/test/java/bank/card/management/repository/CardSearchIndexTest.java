@@ -0,0 +1,74 @@
+package bank.card.management.repository;
+
+import bank.card.management.entity.User;
+import bank.card.management.support.CardFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Регрессия плана: предикат поиска должен оставаться применимым к триграммным GIN-индексам.
+// На тестовом объёме планировщик и так предпочёл бы Seq Scan, поэтому он отключается:
+// если индекс неприменим к выражению, в плане останется Seq Scan
+@SpringBootTest
+class CardSearchIndexTest {
+    
+    // SQL, который Hibernate строит из BankCardRepository.SEARCH_PREDICATE
+    private static final String SEARCH_SQL = "SELECT c.id FROM bank_cards c " +
+            "WHERE (lower(c.owner) LIKE lower(('%'||?||'%')) OR c.card_number_masked LIKE ('%'||?||'%'))";
+    
+    private static final int CARD_COUNT = 2000;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    private CardFixtures fixtures;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate);
+        user = fixtures.createUser("search");
+        
+        fixtures.insertCards(user, CARD_COUNT);
+        jdbcTemplate.execute("ANALYZE bank_cards");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteUser(user);
+    }
+    
+    @Test
+    void testSearchPredicateUsesTrigramIndexes() {
+        String plan = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + SEARCH_SQL, String.class, "a1b2", "1234"));
+        });
+        
+        assertFalse(plan.contains("Seq Scan"), plan);
+        assertTrue(plan.contains("idx_bank_cards_owner_trgm"), plan);
+        assertTrue(plan.contains("idx_bank_cards_card_number_masked_trgm"), plan);
+    }
+    
+    @Test
+    void testSearchFindsOwnerSubstringCaseInsensitively() {
+        String owner = jdbcTemplate.queryForObject(
+                "SELECT owner FROM bank_cards WHERE user_id = ? ORDER BY id LIMIT 1", String.class, user.getId());
+        String term = owner.substring(8, 14).toUpperCase();
+        
+        Integer matches = jdbcTemplate.queryForObject("SELECT count(*) FROM (" + SEARCH_SQL + ") s",
+                Integer.class, term, term);
+        
+        assertNotNull(matches);
+        assertTrue(matches >= 1);
+    }
+}
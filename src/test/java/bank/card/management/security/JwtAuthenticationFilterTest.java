@@ -1,9 +1,15 @@
 package bank.card.management.security;
 
+import bank.card.management.cache.CachedUser;
+import bank.card.management.cache.UserCache;
+import bank.card.management.entity.UserStatus;
+import bank.card.management.mapper.UserDetailsMapper;
 import bank.card.management.service.impl.UserDetailsServiceImpl;
 import bank.card.management.util.JwtConstants;
 import bank.card.management.util.JwtUtil;
 import bank.card.management.util.RoleConstants;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -16,21 +22,36 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class JwtAuthenticationFilterTest {
     
+    @Mock
+    private UserCache userCache;
+    
+    @Mock
+    private UserDetailsMapper userDetailsMapper;
+    
     @Mock
     private UserDetailsServiceImpl userDetailsService;
     
+    @Mock
+    private TokenRevocationRegistry revocationRegistry;
+    
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+    
     @Mock
     private JwtUtil jwtUtil;
     
@@ -47,6 +68,7 @@ class JwtAuthenticationFilterTest {
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     
     private UserDetails userDetails;
+    private CachedUser cachedUser;
     private String validToken = "valid-jwt-token";
     private String username = "testuser";
     
@@ -60,15 +82,18 @@ class JwtAuthenticationFilterTest {
                 .authorities(Arrays.asList(new SimpleGrantedAuthority(RoleConstants.ROLE_PREFIX + RoleConstants.USER)))
                 .disabled(false)
                 .build();
+        cachedUser = new CachedUser(1L, username, UserStatus.ACTIVE,
+                List.of(RoleConstants.ROLE_PREFIX + RoleConstants.USER));
     }
     
     @Test
     void testDoFilterInternal_ValidToken() throws Exception {
         when(request.getRequestURI()).thenReturn("/api/cards");
         when(request.getHeader("Authorization")).thenReturn(JwtConstants.BEARER_PREFIX + validToken);
-        when(jwtUtil.extractUsername(validToken)).thenReturn(username);
-        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtUtil.validateToken(validToken, userDetails)).thenReturn(true);
+        when(verifiedTokenCache.verify(validToken)).thenReturn(claims(UserStatus.ACTIVE));
+        when(userCache.get(username)).thenReturn(cachedUser);
+        when(userDetailsMapper.toUserDetails(cachedUser)).thenReturn(userDetails);
+        when(jwtUtil.validateClaims(any(Claims.class), eq(userDetails))).thenReturn(true);
         
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
         
@@ -91,7 +116,7 @@ class JwtAuthenticationFilterTest {
     void testDoFilterInternal_InvalidToken() throws Exception {
         when(request.getRequestURI()).thenReturn("/api/cards");
         when(request.getHeader("Authorization")).thenReturn(JwtConstants.BEARER_PREFIX + "invalid-token");
-        when(jwtUtil.extractUsername("invalid-token")).thenThrow(new RuntimeException("Invalid token"));
+        when(verifiedTokenCache.verify("invalid-token")).thenThrow(new RuntimeException("Invalid token"));
         
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
         
@@ -106,7 +131,7 @@ class JwtAuthenticationFilterTest {
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
         
         verify(filterChain, times(1)).doFilter(request, response);
-        verify(jwtUtil, never()).extractUsername(anyString());
+        verify(verifiedTokenCache, never()).verify(anyString());
     }
     
     @Test
@@ -116,16 +141,17 @@ class JwtAuthenticationFilterTest {
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
         
         verify(filterChain, times(1)).doFilter(request, response);
-        verify(jwtUtil, never()).extractUsername(anyString());
+        verify(verifiedTokenCache, never()).verify(anyString());
     }
     
     @Test
     void testDoFilterInternal_InvalidTokenValidation() throws Exception {
         when(request.getRequestURI()).thenReturn("/api/cards");
         when(request.getHeader("Authorization")).thenReturn(JwtConstants.BEARER_PREFIX + validToken);
-        when(jwtUtil.extractUsername(validToken)).thenReturn(username);
-        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtUtil.validateToken(validToken, userDetails)).thenReturn(false);
+        when(verifiedTokenCache.verify(validToken)).thenReturn(claims(UserStatus.ACTIVE));
+        when(userCache.get(username)).thenReturn(cachedUser);
+        when(userDetailsMapper.toUserDetails(cachedUser)).thenReturn(userDetails);
+        when(jwtUtil.validateClaims(any(Claims.class), eq(userDetails))).thenReturn(false);
         
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
         
@@ -141,6 +167,80 @@ class JwtAuthenticationFilterTest {
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
         
         verify(filterChain, times(1)).doFilter(request, response);
-        verify(jwtUtil, never()).extractUsername(anyString());
+        verify(verifiedTokenCache, never()).verify(anyString());
+    }
+    
+    @Test
+    void testDoFilterInternal_Stateless_AuthenticatesFromClaimsWithoutDatabase() throws Exception {
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "stateless", true);
+        when(request.getRequestURI()).thenReturn("/api/cards");
+        when(request.getHeader("Authorization")).thenReturn(JwtConstants.BEARER_PREFIX + validToken);
+        when(verifiedTokenCache.verify(validToken)).thenReturn(claims(UserStatus.ACTIVE));
+        
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertEquals(username, SecurityContextHolder.getContext().getAuthentication().getName());
+        assertTrue(SecurityContextHolder.getContext().getAuthentication().getAuthorities()
+                .contains(new SimpleGrantedAuthority(RoleConstants.ROLE_PREFIX + RoleConstants.USER)));
+        verifyNoInteractions(userCache, userDetailsService);
+    }
+    
+    @Test
+    void testDoFilterInternal_Stateless_RejectsTokenWithInactiveStatus() throws Exception {
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "stateless", true);
+        when(request.getRequestURI()).thenReturn("/api/cards");
+        when(request.getHeader("Authorization")).thenReturn(JwtConstants.BEARER_PREFIX + validToken);
+        when(verifiedTokenCache.verify(validToken)).thenReturn(claims(UserStatus.BLOCKED));
+        
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+    
+    @Test
+    void testDoFilterInternal_Stateless_RevokedUserBlockedInDatabase() throws Exception {
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "stateless", true);
+        UserDetails blocked = org.springframework.security.core.userdetails.User.builder()
+                .username(username)
+                .password("password")
+                .authorities(List.of())
+                .disabled(true)
+                .build();
+        when(request.getRequestURI()).thenReturn("/api/cards");
+        when(request.getHeader("Authorization")).thenReturn(JwtConstants.BEARER_PREFIX + validToken);
+        when(verifiedTokenCache.verify(validToken)).thenReturn(claims(UserStatus.ACTIVE));
+        when(revocationRegistry.isRevoked(username)).thenReturn(true);
+        when(userDetailsService.loadUserByUsername(username)).thenReturn(blocked);
+        
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+    
+    @Test
+    void testDoFilterInternal_Stateless_RevokedUserReactivatedInDatabase() throws Exception {
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "stateless", true);
+        when(request.getRequestURI()).thenReturn("/api/cards");
+        when(request.getHeader("Authorization")).thenReturn(JwtConstants.BEARER_PREFIX + validToken);
+        when(verifiedTokenCache.verify(validToken)).thenReturn(claims(UserStatus.ACTIVE));
+        when(revocationRegistry.isRevoked(username)).thenReturn(true);
+        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
+        
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+    
+    private Claims claims(UserStatus status) {
+        return Jwts.claims()
+                .subject(username)
+                .add(JwtConstants.AUTHORITIES_CLAIM, List.of(RoleConstants.ROLE_PREFIX + RoleConstants.USER))
+                .add(JwtConstants.USER_ID_CLAIM, 1L)
+                .add(JwtConstants.STATUS_CLAIM, status.name())
+                .build();
     }
 }
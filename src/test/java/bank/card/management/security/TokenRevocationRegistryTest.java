@@ -0,0 +1,75 @@
+package bank.card.management.security;
+
+import bank.card.management.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationRegistryTest {
+    
+    private static final long TOKEN_LIFETIME_MILLIS = 86_400_000L;
+    
+    @Mock
+    private UserRepository userRepository;
+    
+    private TokenRevocationRegistry registry;
+    
+    @BeforeEach
+    void setUp() {
+        registry = new TokenRevocationRegistry(userRepository);
+        ReflectionTestUtils.setField(registry, "tokenLifetimeMillis", TOKEN_LIFETIME_MILLIS);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    @Test
+    void testRefresh_KeepsDeletedUsersFromDatabase() {
+        when(userRepository.findRevokedUsernames(TOKEN_LIFETIME_MILLIS)).thenReturn(List.of("blocked", "deleted"));
+        
+        registry.refresh();
+        
+        assertTrue(registry.isRevoked("blocked"));
+        assertTrue(registry.isRevoked("deleted"));
+        assertFalse(registry.isRevoked("active"));
+    }
+    
+    @Test
+    void testRevoke_InTransactionAppliedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        
+        registry.revoke("testuser");
+        
+        assertFalse(registry.isRevoked("testuser"));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(registry.isRevoked("testuser"));
+    }
+    
+    @Test
+    void testRestore_RolledBackTransactionKeepsUserRevoked() {
+        registry.revoke("testuser");
+        TransactionSynchronizationManager.initSynchronization();
+        
+        registry.restore("testuser");
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        
+        assertTrue(registry.isRevoked("testuser"));
+    }
+}
@@ -0,0 +1,73 @@
+package bank.card.management.security;
+
+import bank.card.management.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VerifiedTokenCacheTest {
+    
+    @Mock
+    private JwtUtil jwtUtil;
+    
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache verifiedTokenCache;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtil, meterRegistry, 100);
+    }
+    
+    @Test
+    void testVerify_RepeatedTokenIsParsedOnce() {
+        Claims claims = claimsExpiringAt(new Date(System.currentTimeMillis() + 60_000));
+        when(jwtUtil.parseToken("token")).thenReturn(claims);
+        
+        assertSame(claims, verifiedTokenCache.verify("token"));
+        assertSame(claims, verifiedTokenCache.verify("token"));
+        
+        verify(jwtUtil, times(1)).parseToken("token");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+    
+    @Test
+    void testVerify_InvalidTokenIsNotCached() {
+        when(jwtUtil.parseToken("bad")).thenThrow(new IllegalArgumentException("Invalid JWT token"));
+        
+        assertThrows(IllegalArgumentException.class, () -> verifiedTokenCache.verify("bad"));
+        assertThrows(IllegalArgumentException.class, () -> verifiedTokenCache.verify("bad"));
+        
+        verify(jwtUtil, times(2)).parseToken("bad");
+    }
+    
+    @Test
+    void testVerify_ExpiredEntryIsVerifiedAgain() {
+        Claims expired = claimsExpiringAt(new Date(System.currentTimeMillis() - 1_000));
+        when(jwtUtil.parseToken("token")).thenReturn(expired);
+        
+        verifiedTokenCache.verify("token");
+        verifiedTokenCache.verify("token");
+        
+        verify(jwtUtil, times(2)).parseToken("token");
+    }
+    
+    private static Claims claimsExpiringAt(Date expiration) {
+        return Jwts.claims()
+                .subject("testuser")
+                .expiration(expiration)
+                .build();
+    }
+}
@@ -101,7 +101,7 @@ class AuthServiceImplTest {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
             .thenReturn(authentication);
         when(userDetailsService.loadUserByUsername("testuser")).thenReturn(userDetails);
-        when(jwtUtil.generateToken(userDetails)).thenReturn("jwt-token");
+        when(jwtUtil.generateToken(userDetails, 1L)).thenReturn("jwt-token");
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
         
         JwtResponse result = authService.authenticateUser(loginRequest);
@@ -115,7 +115,7 @@ class AuthServiceImplTest {
         assertNotNull(result.getRoles());
         
         verify(authenticationManager, times(1)).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtUtil, times(1)).generateToken(userDetails);
+        verify(jwtUtil, times(1)).generateToken(userDetails, 1L);
     }
     
     @Test
@@ -0,0 +1,113 @@
+package bank.card.management.service;
+
+import bank.card.management.entity.User;
+import bank.card.management.support.CardFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// pgbench-подобное сравнение записи баланса: прежняя широкая строка bank_cards с balance в INCLUDE индекса
+// (копия в balance_bench_wide) против узкой card_balances с fillfactor 70. Каждый UPDATE — отдельная
+// autocommit-транзакция, как у перевода. Запуск: -Dbenchmark=true; методика — docs/balance-updates.md
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BalanceUpdateBenchmarkTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BalanceUpdateBenchmarkTest.class);
+    
+    private static final int CARD_COUNT = 10_000;
+    private static final int UPDATES = 20_000;
+    
+    private static final String WIDE_UPDATE =
+            "UPDATE balance_bench_wide SET balance = balance + 1, version = version + 1, updated_at = now() " +
+            "WHERE id = ?";
+    
+    private static final String NARROW_UPDATE =
+            "UPDATE card_balances SET balance = balance + 1, version = version + 1 WHERE card_id = ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private CardFixtures fixtures;
+    private User user;
+    private List<Long> cardIds;
+    
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate);
+        user = fixtures.createUser("balances");
+        
+        // Шифртекст той же длины, что у настоящих номеров: ширина строки и есть предмет сравнения
+        fixtures.insertCards(user, CARD_COUNT);
+        cardIds = fixtures.cardIds(user);
+        
+        jdbcTemplate.execute("DROP TABLE IF EXISTS balance_bench_wide");
+        jdbcTemplate.update("CREATE TABLE balance_bench_wide AS SELECT c.*, b.balance " +
+                "FROM bank_cards c JOIN card_balances b ON b.card_id = c.id WHERE c.user_id = " + user.getId());
+        jdbcTemplate.execute("ALTER TABLE balance_bench_wide ADD PRIMARY KEY (id)");
+        jdbcTemplate.execute("CREATE INDEX ON balance_bench_wide (user_id, id DESC) " +
+                "INCLUDE (card_number_masked, owner, expiry_date, status, balance)");
+        jdbcTemplate.execute("VACUUM ANALYZE balance_bench_wide");
+        jdbcTemplate.execute("VACUUM ANALYZE card_balances");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS balance_bench_wide");
+        fixtures.deleteUser(user);
+    }
+    
+    @Test
+    void testNarrowBalanceTableWritesLessWal() {
+        long[] wide = run(WIDE_UPDATE, "balance_bench_wide");
+        long[] narrow = run(NARROW_UPDATE, "card_balances");
+        
+        logger.info("{} balance updates: wide row {} ms, {} bytes of WAL, {} of {} HOT; " +
+                        "card_balances {} ms, {} bytes of WAL, {} of {} HOT",
+                UPDATES, wide[0], wide[1], wide[2], wide[3], narrow[0], narrow[1], narrow[2], narrow[3]);
+        assertTrue(narrow[1] < wide[1], "card_balances updates should write less WAL than wide-row updates");
+    }
+    
+    // Возвращает время (мс), объём WAL (байты) и счётчики HOT/всех UPDATE из pg_stat_user_tables.
+    // Статистика сбрасывается бэкендами с задержкой, поэтому счётчики HOT ориентировочные
+    private long[] run(String sql, String table) {
+        Map<String, Object> statsBefore = tableStats(table);
+        String lsnBefore = jdbcTemplate.queryForObject("SELECT pg_current_wal_insert_lsn()::text", String.class);
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < UPDATES; i++) {
+            jdbcTemplate.update(sql, cardIds.get(ThreadLocalRandom.current().nextInt(cardIds.size())));
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        Long walBytes = jdbcTemplate.queryForObject(
+                "SELECT pg_wal_lsn_diff(pg_current_wal_insert_lsn(), ?::pg_lsn)::bigint", Long.class, lsnBefore);
+        Map<String, Object> statsAfter = tableStats(table);
+        return new long[] {
+                elapsedMillis,
+                walBytes,
+                delta(statsBefore, statsAfter, "n_tup_hot_upd"),
+                delta(statsBefore, statsAfter, "n_tup_upd")};
+    }
+    
+    private Map<String, Object> tableStats(String table) {
+        return jdbcTemplate.queryForMap(
+                "SELECT n_tup_upd, n_tup_hot_upd FROM pg_stat_user_tables WHERE relname = ?", table);
+    }
+    
+    private static long delta(Map<String, Object> before, Map<String, Object> after, String column) {
+        return ((Number) after.get(column)).longValue() - ((Number) before.get(column)).longValue();
+    }
+}
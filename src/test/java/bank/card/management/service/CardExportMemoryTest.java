@@ -0,0 +1,105 @@
+package bank.card.management.service;
+
+import bank.card.management.entity.User;
+import bank.card.management.support.CardFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Выгрузка не должна накапливать строки: занятая куча после GC не растёт с числом выгруженных карт.
+// Наполняет bank_cards 300 000 строк и замеряет кучу, поэтому запуск только явно: -Dbenchmark=true
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CardExportMemoryTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CardExportMemoryTest.class);
+    
+    private static final int CARD_COUNT = 300_000;
+    private static final int SAMPLE_EVERY = 50_000;
+    // Материализованные 300 000 AdminCardResponse заняли бы порядка 80 МБ
+    private static final long MAX_HEAP_GROWTH = 32L * 1024 * 1024;
+    
+    @Autowired
+    private CardExportService cardExportService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private CardFixtures fixtures;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate);
+        user = fixtures.createUser("export");
+        
+        fixtures.insertCards(user, CARD_COUNT);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteUser(user);
+    }
+    
+    @Test
+    void testExportCards_HeapDoesNotGrowWithRowCount() throws IOException {
+        long expectedLines = jdbcTemplate.queryForObject("SELECT count(*) FROM bank_cards", Long.class);
+        HeapSamplingOutputStream out = new HeapSamplingOutputStream();
+        
+        cardExportService.exportCards(CardFileFormat.NDJSON, out);
+        
+        logger.info("Exported {} lines ({} MB), heap after GC: min {} MB, max {} MB",
+                out.lines, out.bytes / (1024 * 1024), out.minHeap / (1024 * 1024), out.maxHeap / (1024 * 1024));
+        assertEquals(expectedLines, out.lines);
+        assertTrue(out.samples >= CARD_COUNT / SAMPLE_EVERY);
+        assertTrue(out.maxHeap - out.minHeap < MAX_HEAP_GROWTH,
+                "Heap grew by " + (out.maxHeap - out.minHeap) + " bytes during export");
+    }
+    
+    // Отбрасывает данные и замеряет кучу после полной сборки каждые SAMPLE_EVERY строк
+    private static class HeapSamplingOutputStream extends OutputStream {
+        
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private long bytes;
+        private long lines;
+        private int samples;
+        private long minHeap = Long.MAX_VALUE;
+        private long maxHeap;
+        
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+        
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            bytes += length;
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n' && ++lines % SAMPLE_EVERY == 0) {
+                    sample();
+                }
+            }
+        }
+        
+        private void sample() {
+            System.gc();
+            long used = memory.getHeapMemoryUsage().getUsed();
+            minHeap = Math.min(minHeap, used);
+            maxHeap = Math.max(maxHeap, used);
+            samples++;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package bank.card.management.service;
+
+import bank.card.management.dto.response.AdminCardResponse;
+import bank.card.management.entity.CardStatus;
+import bank.card.management.repository.BankCardRepository;
+import bank.card.management.service.impl.CardExportServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardExportServiceImplTest {
+    
+    @Mock
+    private BankCardRepository cardRepository;
+    
+    @InjectMocks
+    private CardExportServiceImpl cardExportService;
+    
+    private AdminCardResponse plainCard;
+    private AdminCardResponse quotedCard;
+    
+    @BeforeEach
+    void setUp() {
+        plainCard = new AdminCardResponse(1L, "**** **** **** 3456", "John Doe",
+                LocalDate.of(2030, 12, 31), CardStatus.ACTIVE, new BigDecimal("1000.00"), 7L);
+        quotedCard = new AdminCardResponse(2L, "**** **** **** 7890", "Doe, \"Jack\"\nJr\\",
+                LocalDate.of(2031, 1, 1), CardStatus.BLOCKED, new BigDecimal("0.50"), 8L);
+    }
+    
+    @Test
+    void testExportCards_Csv() throws IOException {
+        when(cardRepository.streamAdminCardResponses()).thenReturn(Stream.of(plainCard, quotedCard));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        cardExportService.exportCards(CardFileFormat.CSV, out);
+        
+        assertEquals("id,cardNumber,owner,expiryDate,status,balance,userId\n" +
+                        "1,**** **** **** 3456,John Doe,2030-12-31,ACTIVE,1000.00,7\n" +
+                        "2,**** **** **** 7890,\"Doe, \"\"Jack\"\"\nJr\\\",2031-01-01,BLOCKED,0.50,8\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    void testExportCards_Ndjson() throws IOException {
+        when(cardRepository.streamAdminCardResponses()).thenReturn(Stream.of(plainCard, quotedCard));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        cardExportService.exportCards(CardFileFormat.NDJSON, out);
+        
+        assertEquals("{\"id\":1,\"cardNumber\":\"**** **** **** 3456\",\"owner\":\"John Doe\"," +
+                        "\"expiryDate\":\"2030-12-31\",\"status\":\"ACTIVE\",\"balance\":1000.00,\"userId\":7}\n" +
+                        "{\"id\":2,\"cardNumber\":\"**** **** **** 7890\",\"owner\":\"Doe, \\\"Jack\\\"\\u000aJr\\\\\"," +
+                        "\"expiryDate\":\"2031-01-01\",\"status\":\"BLOCKED\",\"balance\":0.50,\"userId\":8}\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    void testExportCards_ClosesStreamWhenClientDisconnects() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(cardRepository.streamAdminCardResponses())
+                .thenReturn(Stream.generate(() -> plainCard).onClose(() -> closed.set(true)));
+        OutputStream brokenPipe = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        
+        assertThrows(IOException.class,
+                () -> cardExportService.exportCards(CardFileFormat.NDJSON, brokenPipe));
+        assertTrue(closed.get());
+    }
+}
@@ -0,0 +1,202 @@
+package bank.card.management.service;
+
+import bank.card.management.cache.CachedUser;
+import bank.card.management.cache.UserCache;
+import bank.card.management.config.CardImportProperties;
+import bank.card.management.config.EncryptionProperties;
+import bank.card.management.dto.response.CardImportErrorResponse;
+import bank.card.management.dto.response.CardImportResponse;
+import bank.card.management.entity.UserStatus;
+import bank.card.management.exception.CardImportException;
+import bank.card.management.service.impl.CardImportServiceImpl;
+import bank.card.management.util.CardNumberHasher;
+import bank.card.management.util.CardNumberMasker;
+import bank.card.management.util.EncryptionUtil;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardImportServiceImplTest {
+    
+    private static final String ADMIN = "admin";
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @Mock
+    private UserCache userCache;
+    
+    private CardImportProperties properties;
+    private CardNumberHasher cardNumberHasher;
+    private CardImportServiceImpl importService;
+    private final List<String[]> insertedHashes = new ArrayList<>();
+    private final List<String[]> insertedStatuses = new ArrayList<>();
+    private final List<byte[][]> insertedNumbers = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        properties = new CardImportProperties();
+        properties.setChunkSize(2);
+        properties.setWorkers(2);
+        
+        EncryptionProperties encryptionProperties = new EncryptionProperties();
+        cardNumberHasher = new CardNumberHasher(encryptionProperties);
+        importService = new CardImportServiceImpl(
+                jdbcTemplate,
+                userCache,
+                new EncryptionUtil(encryptionProperties),
+                new CardNumberMasker(),
+                cardNumberHasher,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                JsonMapper.builder().build(),
+                properties);
+        
+        when(userCache.get(ADMIN)).thenReturn(new CachedUser(1L, ADMIN, UserStatus.ACTIVE, List.of("ROLE_ADMIN")));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(importService, "shutdown");
+    }
+    
+    @Test
+    void testImportCsv_ReportsRowErrorsAndInsertsValidRows() throws Exception {
+        stubUsers(1L);
+        stubInsert(Set.of());
+        String csv = "cardNumber,owner,expiryDate,initialBalance,userId\n" +
+                "4111111111111111,John Doe,2030-12-31,100.00,\n" +
+                "4111111111111112,John Doe,2030-12-31,100.00,\n" +
+                "5555555555554444,\"Doe, Jane\",not-a-date,10,\n" +
+                "4012888888881881,Bob,2030-01-01,5,99\n" +
+                "378282246310005,Ann,2020-01-01,0,\n";
+        
+        CardImportResponse response = importService.importCards(CardFileFormat.CSV, stream(csv), ADMIN);
+        
+        assertEquals(2, response.getImported());
+        assertEquals(3, response.getFailed());
+        assertEquals(List.of(3L, 4L, 5L), response.getErrors().stream().map(CardImportErrorResponse::getLine).toList());
+        assertEquals("Invalid card number **** **** **** 1112", response.getErrors().get(0).getMessage());
+        assertEquals("Invalid expiry date: not-a-date", response.getErrors().get(1).getMessage());
+        assertEquals("User not found with id: 99", response.getErrors().get(2).getMessage());
+        
+        List<String> statuses = insertedStatuses.stream().flatMap(Arrays::stream).toList();
+        assertTrue(statuses.containsAll(List.of("ACTIVE", "EXPIRED")));
+        assertTrue(insertedNumbers.stream().flatMap(Arrays::stream).allMatch(number -> number[0] == 1));
+    }
+    
+    @Test
+    void testImportNdjson_ReportsMalformedAndExistingCards() throws Exception {
+        stubUsers(1L);
+        String existingHash = cardNumberHasher.hash("5555555555554444");
+        stubInsert(Set.of(existingHash));
+        String ndjson = "{\"cardNumber\":\"4111111111111111\",\"owner\":\"John Doe\"," +
+                "\"expiryDate\":\"2030-12-31\",\"initialBalance\":100.00}\n" +
+                "{\"cardNumber\":\"4012888888881881\",\n" +
+                "\n" +
+                "{\"cardNumber\":\"5555555555554444\",\"owner\":\"Jane Doe\"," +
+                "\"expiryDate\":\"2030-12-31\",\"initialBalance\":1}\n";
+        
+        CardImportResponse response = importService.importCards(CardFileFormat.NDJSON, stream(ndjson), ADMIN);
+        
+        assertEquals(1, response.getImported());
+        assertEquals(2, response.getFailed());
+        assertEquals(2L, response.getErrors().get(0).getLine());
+        assertTrue(response.getErrors().get(0).getMessage().startsWith("Malformed JSON record"));
+        assertEquals(4L, response.getErrors().get(1).getLine());
+        assertEquals("Card with number **** **** **** 4444 already exists", response.getErrors().get(1).getMessage());
+    }
+    
+    @Test
+    void testImport_RepeatedNumberInChunk() throws Exception {
+        stubUsers(1L);
+        stubInsert(Set.of());
+        String csv = "cardNumber,owner,expiryDate,initialBalance\n" +
+                "4111111111111111,John Doe,2030-12-31,1\n" +
+                "4111 1111 1111 1111,John Doe,2030-12-31,1\n";
+        
+        CardImportResponse response = importService.importCards(CardFileFormat.CSV, stream(csv), ADMIN);
+        
+        assertEquals(1, response.getImported());
+        assertEquals(1, response.getFailed());
+        assertEquals("Card with number **** **** **** 1111 is repeated in the file",
+                response.getErrors().get(0).getMessage());
+    }
+    
+    @Test
+    void testImport_ValidationErrorsWithoutDatabaseAccess() throws Exception {
+        properties.setMaxReportedErrors(1);
+        String csv = "cardNumber,owner,expiryDate,initialBalance\n" +
+                ",John Doe,2030-12-31,1\n" +
+                "4111111111111111,,2030-12-31,1\n" +
+                "4111111111111111,John Doe,2030-12-31,-5\n";
+        
+        CardImportResponse response = importService.importCards(CardFileFormat.CSV, stream(csv), ADMIN);
+        
+        assertEquals(0, response.getImported());
+        assertEquals(3, response.getFailed());
+        assertEquals(1, response.getErrors().size());
+        assertEquals("Card number is required", response.getErrors().get(0).getMessage());
+        verifyNoInteractions(jdbcTemplate);
+    }
+    
+    @Test
+    void testImportCsv_MissingColumns() {
+        String csv = "cardNumber,owner\n4111111111111111,John Doe\n";
+        
+        assertThrows(CardImportException.class,
+                () -> importService.importCards(CardFileFormat.CSV, stream(csv), ADMIN));
+        verifyNoInteractions(jdbcTemplate);
+    }
+    
+    private void stubUsers(Long... existingIds) {
+        List<Long> existing = List.of(existingIds);
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM users"), eq(Long.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    Long[] requested = invocation.getArgument(2);
+                    return Arrays.stream(requested).filter(existing::contains).toList();
+                });
+    }
+    
+    // Аргументы INSERT: card_number_bin, card_number_masked, card_number_hash, owner, expiry_date, status, balance, user_id
+    private void stubInsert(Set<String> existingHashes) {
+        when(jdbcTemplate.queryForList(contains("INSERT INTO bank_cards"), eq(String.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    byte[][] numbers = invocation.getArgument(2);
+                    String[] hashes = invocation.getArgument(4);
+                    String[] statuses = invocation.getArgument(7);
+                    synchronized (insertedHashes) {
+                        insertedNumbers.add(numbers);
+                        insertedHashes.add(hashes);
+                        insertedStatuses.add(statuses);
+                    }
+                    return Arrays.stream(hashes).filter(hash -> !existingHashes.contains(hash)).toList();
+                });
+    }
+    
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
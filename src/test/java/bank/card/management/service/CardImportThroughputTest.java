@@ -0,0 +1,129 @@
+package bank.card.management.service;
+
+import bank.card.management.dto.response.CardImportResponse;
+import bank.card.management.entity.User;
+import bank.card.management.support.CardFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Загрузка миллиона карт одним CSV-файлом; цель — меньше минуты на одном узле.
+// Файл генерируется на лету, строки остаются в bank_cards до tearDown, поэтому запуск только явно: -Dbenchmark=true
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CardImportThroughputTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CardImportThroughputTest.class);
+    
+    private static final int CARD_COUNT = 1_000_000;
+    
+    @Autowired
+    private CardImportService cardImportService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private CardFixtures fixtures;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate);
+        user = fixtures.createUser("import");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteUser(user);
+    }
+    
+    @Test
+    void testImportMillionCards() throws Exception {
+        long start = System.nanoTime();
+        CardImportResponse response = cardImportService.importCards(CardFileFormat.CSV,
+                new GeneratedCsvInputStream(CARD_COUNT), user.getUsername());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        logger.info("Imported {} cards in {} ms ({} cards/s), {} failed",
+                response.getImported(), elapsedMillis, response.getImported() * 1000 / Math.max(elapsedMillis, 1),
+                response.getFailed());
+        assertEquals(CARD_COUNT, response.getImported());
+        assertEquals(0, response.getFailed());
+        assertEquals(CARD_COUNT, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM bank_cards WHERE user_id = ?", Long.class, user.getId()));
+    }
+    
+    // CSV с уникальными номерами, проходящими проверку Луна; в памяти находится только текущая строка
+    private static class GeneratedCsvInputStream extends InputStream {
+        
+        private final int rows;
+        private final long base = ThreadLocalRandom.current().nextLong(100_000_000L, 900_000_000L) * 1_000_000L;
+        private byte[] line = "cardNumber,owner,expiryDate,initialBalance\n".getBytes(StandardCharsets.UTF_8);
+        private int position;
+        private int row;
+        
+        GeneratedCsvInputStream(int rows) {
+            this.rows = rows;
+        }
+        
+        @Override
+        public int read() {
+            if (position == line.length && !nextLine()) {
+                return -1;
+            }
+            return line[position++] & 0xFF;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position == line.length && !nextLine()) {
+                return -1;
+            }
+            int count = Math.min(length, line.length - position);
+            System.arraycopy(line, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+        
+        private boolean nextLine() {
+            if (row == rows) {
+                return false;
+            }
+            String number = withCheckDigit("4" + (base + row));
+            line = (number + ",Import Test " + row + ",2030-12-31,100.00\n").getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            row++;
+            return true;
+        }
+        
+        private static String withCheckDigit(String digits) {
+            int sum = 0;
+            for (int i = digits.length() - 1, position = 0; i >= 0; i--, position++) {
+                int digit = digits.charAt(i) - '0';
+                if (position % 2 == 0) {
+                    digit *= 2;
+                    if (digit > 9) {
+                        digit -= 9;
+                    }
+                }
+                sum += digit;
+            }
+            return digits + (10 - sum % 10) % 10;
+        }
+    }
+}
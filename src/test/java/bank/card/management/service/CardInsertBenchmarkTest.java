@@ -0,0 +1,106 @@
+package bank.card.management.service;
+
+import bank.card.management.entity.BankCard;
+import bank.card.management.entity.User;
+import bank.card.management.repository.BankCardRepository;
+import bank.card.management.support.CardFixtures;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 10 000 вставок карт: по одному INSERT ... RETURNING id на строку (так работал GenerationType.IDENTITY)
+// против saveAll с id из pooled-lo последовательности и JDBC-пакетами. Запуск: -Dbenchmark=true
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CardInsertBenchmarkTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CardInsertBenchmarkTest.class);
+    
+    private static final int CARD_COUNT = 10_000;
+    
+    private static final String INSERT_RETURNING_ID =
+            "WITH card AS (INSERT INTO bank_cards (card_number_bin, card_number_masked, owner, expiry_date, status, " +
+            "user_id, created_at, updated_at, version) VALUES (?, ?, 'Insert Test', ?, 'ACTIVE', ?, now(), now(), 0) " +
+            "RETURNING id) " +
+            "INSERT INTO card_balances (card_id, balance) SELECT id, 100 FROM card RETURNING card_id";
+    
+    @Autowired
+    private BankCardRepository cardRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private CardFixtures fixtures;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate);
+        user = fixtures.createUser("insert");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteUser(user);
+    }
+    
+    @Test
+    void testBatchedInsertsComparedToRowByRow() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        LocalDate expiryDate = LocalDate.now().plusYears(3);
+        
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < CARD_COUNT; i++) {
+                jdbcTemplate.queryForObject(INSERT_RETURNING_ID, Long.class,
+                        (user.getUsername() + "-row-" + i).getBytes(StandardCharsets.UTF_8), "**** " + i, expiryDate,
+                        user.getId());
+            }
+        });
+        long rowByRowMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        List<BankCard> cards = new ArrayList<>(CARD_COUNT);
+        for (int i = 0; i < CARD_COUNT; i++) {
+            cards.add(CardFixtures.newCard(user, i));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        
+        start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> cardRepository.saveAll(cards));
+        long batchedMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        logger.info("{} card inserts: row by row {} ms, batched {} ms ({} JDBC statements prepared)",
+                CARD_COUNT, rowByRowMillis, batchedMillis, statistics.getPrepareStatementCount());
+        assertEquals(2L * CARD_COUNT, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM bank_cards WHERE user_id = ?", Long.class, user.getId()));
+        // nextval на каждые 50 id и один пакет на каждые 50 строк (около 400) вместо 10 000 INSERT
+        assertTrue(statistics.getPrepareStatementCount() < CARD_COUNT / 10);
+        assertTrue(batchedMillis < rowByRowMillis,
+                "Batched inserts should be faster than one INSERT per row");
+    }
+}
@@ -0,0 +1,102 @@
+package bank.card.management.service;
+
+import bank.card.management.dto.response.AdminCardResponse;
+import bank.card.management.dto.response.CursorPageResponse;
+import bank.card.management.entity.User;
+import bank.card.management.support.CardFixtures;
+import bank.card.management.util.CursorHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Сравнение OFFSET-страниц и keyset-курсора на страницах 1, 1 000 и 100 000 (по 10 строк).
+// Наполняет bank_cards миллионом строк, поэтому запускается только явно: -Dbenchmark=true
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CardPaginationBenchmarkTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CardPaginationBenchmarkTest.class);
+    
+    private static final int PAGE_SIZE = 10;
+    private static final int[] PAGES = {1, 1_000, 100_000};
+    private static final int CARD_COUNT = 100_000 * PAGE_SIZE + PAGE_SIZE;
+    private static final int REPETITIONS = 20;
+    
+    @Autowired
+    private CardService cardService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private CardFixtures fixtures;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate);
+        user = fixtures.createUser("paging");
+        
+        fixtures.insertCards(user, CARD_COUNT);
+        jdbcTemplate.execute("ANALYZE bank_cards");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteUser(user);
+    }
+    
+    @Test
+    void testKeysetPageCostDoesNotGrowWithDepth() {
+        Sort sort = Sort.by("id").descending();
+        long deepOffsetNanos = 0;
+        long deepKeysetNanos = 0;
+        
+        for (int page : PAGES) {
+            int offset = (page - 1) * PAGE_SIZE;
+            // Курсор клиента, дошедшего до этой страницы, — id последней строки предыдущей страницы
+            String cursor = null;
+            if (page > 1) {
+                Long lastId = jdbcTemplate.queryForObject(
+                        "SELECT id FROM bank_cards ORDER BY id DESC OFFSET ? LIMIT 1", Long.class, offset - 1);
+                cursor = CursorHelper.encode("id", lastId, lastId);
+            }
+            String pageCursor = cursor;
+            
+            Page<AdminCardResponse> offsetPage = cardService.getAllCards(PageRequest.of(page - 1, PAGE_SIZE, sort));
+            CursorPageResponse<AdminCardResponse> keysetPage = cardService.scrollAllCards("id", pageCursor, PAGE_SIZE);
+            assertEquals(offsetPage.getContent(), keysetPage.getContent());
+            
+            long offsetNanos = measure(() -> cardService.getAllCards(PageRequest.of(page - 1, PAGE_SIZE, sort)));
+            long keysetNanos = measure(() -> cardService.scrollAllCards("id", pageCursor, PAGE_SIZE));
+            logger.info("Page {}: OFFSET {} µs, keyset {} µs", page, offsetNanos / 1_000, keysetNanos / 1_000);
+            
+            deepOffsetNanos = offsetNanos;
+            deepKeysetNanos = keysetNanos;
+        }
+        
+        assertTrue(deepKeysetNanos < deepOffsetNanos,
+                "Keyset page at depth " + PAGES[PAGES.length - 1] + " should be faster than OFFSET");
+    }
+    
+    private static long measure(Supplier<?> query) {
+        query.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < REPETITIONS; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - start) / REPETITIONS;
+    }
+}
@@ -0,0 +1,104 @@
+package bank.card.management.service;
+
+import bank.card.management.dto.response.CardResponse;
+import bank.card.management.entity.CardStatus;
+import bank.card.management.entity.User;
+import bank.card.management.mapper.CardResponseMapper;
+import bank.card.management.repository.BankCardRepository;
+import bank.card.management.support.CardFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Байты кучи, выделенные на страницу из 1 000 карт: загрузка сущностей + MapStruct против проекции в запросе.
+// Результат зависит от JVM и сборщика мусора, поэтому запуск только явно: -Dbenchmark=true
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CardProjectionAllocationTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CardProjectionAllocationTest.class);
+    
+    private static final int CARD_COUNT = 1000;
+    private static final int REPETITIONS = 5;
+    
+    @Autowired
+    private BankCardRepository cardRepository;
+    
+    @Autowired
+    private CardResponseMapper cardResponseMapper;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private CardFixtures fixtures;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate);
+        user = fixtures.createUser("projection");
+        
+        fixtures.insertCards(user, CARD_COUNT);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteUser(user);
+    }
+    
+    @Test
+    void testProjectionAllocatesLessThanEntityHydration() {
+        Pageable pageable = PageRequest.of(0, CARD_COUNT, Sort.by("id").descending());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        
+        long entityBytes = measure(() -> transactionTemplate.execute(status ->
+                cardRepository.findByUserIdAndStatus(user.getId(), CardStatus.ACTIVE, pageable)
+                        .map(cardResponseMapper::toCardResponse)));
+        long projectionBytes = measure(() -> transactionTemplate.execute(status ->
+                cardRepository.findCardResponsesByUserId(user.getId(), pageable)));
+        
+        logger.info("Heap allocated per {}-row page: entities + mapper {} KB, projection {} KB",
+                CARD_COUNT, entityBytes / 1024, projectionBytes / 1024);
+        
+        Page<CardResponse> page = transactionTemplate.execute(status ->
+                cardRepository.findCardResponsesByUserId(user.getId(), pageable));
+        assertEquals(CARD_COUNT, page.getNumberOfElements());
+        assertTrue(projectionBytes < entityBytes,
+                "Projection allocated " + projectionBytes + " bytes, entities " + entityBytes);
+    }
+    
+    // Счётчик выделений текущего потока: не зависит от сборок мусора во время замера
+    private static long measure(Supplier<?> query) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < REPETITIONS; i++) {
+            query.get();
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < REPETITIONS; i++) {
+            query.get();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / REPETITIONS;
+    }
+}
@@ -1,11 +1,15 @@
 package bank.card.management.service;
 
+import bank.card.management.cache.CachedUser;
+import bank.card.management.cache.UserCache;
 import bank.card.management.dto.request.CreateCardRequest;
 import bank.card.management.dto.response.AdminCardResponse;
 import bank.card.management.dto.response.CardResponse;
+import bank.card.management.dto.response.CursorPageResponse;
 import bank.card.management.entity.BankCard;
 import bank.card.management.entity.CardStatus;
 import bank.card.management.entity.User;
+import bank.card.management.entity.UserStatus;
 import bank.card.management.exception.CardAlreadyExistsException;
 import bank.card.management.exception.CardExpiredException;
 import bank.card.management.exception.CardNotFoundException;
@@ -14,7 +18,9 @@ import bank.card.management.mapper.CardResponseMapper;
 import bank.card.management.repository.BankCardRepository;
 import bank.card.management.repository.UserRepository;
 import bank.card.management.service.impl.CardServiceImpl;
+import bank.card.management.util.CardNumberHasher;
 import bank.card.management.util.CardNumberMasker;
+import bank.card.management.util.CursorHelper;
 import bank.card.management.util.EncryptionUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,20 +28,31 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,12 +64,18 @@ class CardServiceImplTest {
     @Mock
     private UserRepository userRepository;
     
+    @Mock
+    private UserCache userCache;
+    
     @Mock
     private EncryptionUtil encryptionUtil;
     
     @Mock
     private CardNumberMasker cardNumberMasker;
     
+    @Mock
+    private CardNumberHasher cardNumberHasher;
+    
     @Mock
     private CardResponseMapper cardResponseMapper;
     
@@ -63,6 +86,7 @@ class CardServiceImplTest {
     private CardServiceImpl cardService;
     
     private User testUser;
+    private CachedUser cachedUser;
     private BankCard testCard;
     private CreateCardRequest createCardRequest;
     
@@ -72,10 +96,11 @@ class CardServiceImplTest {
         testUser.setId(1L);
         testUser.setUsername("testuser");
         testUser.setEmail("test@example.com");
+        cachedUser = new CachedUser(1L, "testuser", UserStatus.ACTIVE, List.of());
         
         testCard = new BankCard();
         testCard.setId(1L);
-        testCard.setCardNumber("encrypted123");
+        testCard.setCardNumber(new byte[] {1, 2, 3});
         testCard.setCardNumberMasked("**** **** **** 1234");
         testCard.setOwner("John Doe");
         testCard.setExpiryDate(LocalDate.now().plusYears(2));
@@ -92,10 +117,13 @@ class CardServiceImplTest {
     
     @Test
     void testCreateCard_Success() {
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(userCache.get("testuser")).thenReturn(cachedUser);
         when(cardNumberMasker.maskCardNumber("1234567890123456")).thenReturn("**** **** **** 3456");
-        when(cardRepository.existsByCardNumberMasked("**** **** **** 3456")).thenReturn(false);
-        when(encryptionUtil.encrypt("1234567890123456")).thenReturn("encrypted123");
+        when(cardNumberHasher.hash("1234567890123456")).thenReturn("hash3456");
+        when(cardRepository.existsByCardNumberHash("hash3456")).thenReturn(false);
+        when(encryptionUtil.encrypt(aryEq("1234567890123456".getBytes(StandardCharsets.UTF_8))))
+                .thenReturn(new byte[] {1, 2, 3});
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
         when(cardRepository.save(any(BankCard.class))).thenReturn(testCard);
         
         CardResponse cardResponse = new CardResponse();
@@ -106,13 +134,13 @@ class CardServiceImplTest {
         CardResponse result = cardService.createCard(createCardRequest, "testuser");
         
         assertNotNull(result);
-        verify(cardRepository, times(1)).save(any(BankCard.class));
+        verify(cardRepository, times(1)).save(argThat(card -> "hash3456".equals(card.getCardNumberHash())));
         verify(cardResponseMapper, times(1)).toCardResponse(any(BankCard.class));
     }
     
     @Test
     void testCreateCard_UserNotFound() {
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.empty());
+        when(userCache.get("testuser")).thenThrow(new UsernameNotFoundException("User not found: testuser"));
         
         assertThrows(UsernameNotFoundException.class, 
             () -> cardService.createCard(createCardRequest, "testuser"));
@@ -120,9 +148,10 @@ class CardServiceImplTest {
     
     @Test
     void testCreateCard_CardAlreadyExists() {
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(userCache.get("testuser")).thenReturn(cachedUser);
         when(cardNumberMasker.maskCardNumber("1234567890123456")).thenReturn("**** **** **** 3456");
-        when(cardRepository.existsByCardNumberMasked("**** **** **** 3456")).thenReturn(true);
+        when(cardNumberHasher.hash("1234567890123456")).thenReturn("hash3456");
+        when(cardRepository.existsByCardNumberHash("hash3456")).thenReturn(true);
         
         assertThrows(CardAlreadyExistsException.class, 
             () -> cardService.createCard(createCardRequest, "testuser"));
@@ -132,10 +161,12 @@ class CardServiceImplTest {
     void testCreateCard_ExpiredCard() {
         createCardRequest.setExpiryDate(LocalDate.now().minusDays(1));
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(userCache.get("testuser")).thenReturn(cachedUser);
         when(cardNumberMasker.maskCardNumber("1234567890123456")).thenReturn("**** **** **** 3456");
-        when(cardRepository.existsByCardNumberMasked("**** **** **** 3456")).thenReturn(false);
-        when(encryptionUtil.encrypt("1234567890123456")).thenReturn("encrypted123");
+        when(cardNumberHasher.hash("1234567890123456")).thenReturn("hash3456");
+        when(cardRepository.existsByCardNumberHash("hash3456")).thenReturn(false);
+        when(encryptionUtil.encrypt(aryEq("1234567890123456".getBytes(StandardCharsets.UTF_8))))
+                .thenReturn(new byte[] {1, 2, 3});
         
         BankCard expiredCard = new BankCard();
         expiredCard.setStatus(CardStatus.EXPIRED);
@@ -154,24 +185,81 @@ class CardServiceImplTest {
     @Test
     void testGetUserCards_Success() {
         Pageable pageable = PageRequest.of(0, 10);
-        Page<BankCard> cardPage = new PageImpl<>(Arrays.asList(testCard));
+        Page<CardResponse> cardPage = new PageImpl<>(Arrays.asList(new CardResponse()));
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByUser(testUser, pageable)).thenReturn(cardPage);
-        
-        CardResponse cardResponse = new CardResponse();
-        when(cardResponseMapper.toCardResponse(testCard)).thenReturn(cardResponse);
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findCardResponsesByUserId(1L, pageable)).thenReturn(cardPage);
         
         Page<CardResponse> result = cardService.getUserCards("testuser", pageable);
         
         assertNotNull(result);
         assertEquals(1, result.getContent().size());
+        // Проекция строится запросом, сущности и маппер не участвуют
+        verifyNoInteractions(cardResponseMapper);
+    }
+    
+    @Test
+    void testGetUserCardsSlice_NoCountQuery() {
+        Pageable pageable = PageRequest.of(0, 1);
+        
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findCardResponseSliceByUserId(1L, pageable))
+                .thenReturn(new SliceImpl<>(List.of(new CardResponse()), pageable, false));
+        
+        Slice<CardResponse> result = cardService.getUserCardsSlice("testuser", pageable);
+        
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.hasNext());
+        verify(cardRepository, never()).findCardResponsesByUserId(eq(1L), any(Pageable.class));
+    }
+    
+    @Test
+    void testGetAllCardsWithApproximateTotal_UsesEstimate() {
+        Pageable pageable = PageRequest.of(0, 1);
+        
+        when(cardRepository.findAdminCardResponseSlice(pageable))
+                .thenReturn(new SliceImpl<>(List.of(new AdminCardResponse()), pageable, true));
+        when(cardRepository.estimateCount()).thenReturn(10_000_000L);
+        
+        Page<AdminCardResponse> result = cardService.getAllCardsWithApproximateTotal(pageable);
+        
+        assertEquals(10_000_000L, result.getTotalElements());
+        verify(cardRepository, never()).count();
+    }
+    
+    @Test
+    void testSearchAllCards_Success() {
+        Pageable pageable = PageRequest.of(0, 10);
+        
+        when(cardRepository.findAdminCardResponseSliceBySearchTerm("3456", pageable))
+                .thenReturn(new SliceImpl<>(List.of(new AdminCardResponse()), pageable, false));
+        
+        Slice<AdminCardResponse> result = cardService.searchAllCards("3456", pageable);
+        
+        assertEquals(1, result.getContent().size());
+    }
+    
+    @Test
+    void testScrollUserCards_ReturnsCursorOfLastRow() {
+        Window<BankCard> window = Window.from(List.of(testCard),
+                index -> ScrollPosition.forward(Map.of("id", testCard.getId())), true);
+        
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findWindowByUserId(eq(1L), any(ScrollPosition.class), any(Sort.class), eq(Limit.of(1))))
+                .thenReturn(window);
+        when(cardResponseMapper.toCardResponse(testCard)).thenReturn(new CardResponse());
+        
+        CursorPageResponse<CardResponse> result = cardService.scrollUserCards("testuser", "id", null, 1);
+        
+        assertEquals(1, result.getContent().size());
+        assertTrue(result.isHasNext());
+        assertEquals(CursorHelper.encode("id", 1L, 1L), result.getNextCursor());
     }
     
     @Test
     void testGetCardById_Success() {
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(testCard));
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(testCard));
         
         CardResponse cardResponse = new CardResponse();
         when(cardResponseMapper.toCardResponse(testCard)).thenReturn(cardResponse);
@@ -183,8 +271,8 @@ class CardServiceImplTest {
     
     @Test
     void testGetCardById_CardNotFound() {
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.empty());
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.empty());
         
         assertThrows(CardNotFoundException.class, 
             () -> cardService.getCardById(1L, "testuser"));
@@ -214,10 +302,33 @@ class CardServiceImplTest {
             () -> cardService.getCardByIdAdmin(1L));
     }
     
+    @Test
+    void testFindCardByNumberAdmin_Success() {
+        when(cardNumberHasher.hash("1234 5678 9012 3456")).thenReturn("hash3456");
+        when(cardRepository.findByCardNumberHash("hash3456")).thenReturn(Optional.of(testCard));
+        
+        AdminCardResponse adminResponse = new AdminCardResponse();
+        adminResponse.setId(1L);
+        when(adminCardResponseMapper.toAdminCardResponse(testCard)).thenReturn(adminResponse);
+        
+        AdminCardResponse result = cardService.findCardByNumberAdmin("1234 5678 9012 3456");
+        
+        assertEquals(1L, result.getId());
+    }
+    
+    @Test
+    void testFindCardByNumberAdmin_CardNotFound() {
+        when(cardNumberHasher.hash("1234567890123456")).thenReturn("hash3456");
+        when(cardRepository.findByCardNumberHash("hash3456")).thenReturn(Optional.empty());
+        
+        assertThrows(CardNotFoundException.class, 
+            () -> cardService.findCardByNumberAdmin("1234567890123456"));
+    }
+    
     @Test
     void testBlockCard_Success() {
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(testCard));
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(testCard));
         when(cardRepository.save(testCard)).thenReturn(testCard);
         
         CardResponse cardResponse = new CardResponse();
@@ -235,8 +346,8 @@ class CardServiceImplTest {
     void testBlockCard_ExpiredCard() {
         testCard.setStatus(CardStatus.EXPIRED);
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(testCard));
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(testCard));
         
         assertThrows(CardExpiredException.class, 
             () -> cardService.blockCard(1L, "testuser"));
@@ -310,8 +421,8 @@ class CardServiceImplTest {
         BankCard activeCard2 = new BankCard();
         activeCard2.setStatus(CardStatus.ACTIVE);
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByUserAndStatus(testUser, CardStatus.ACTIVE))
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findByUserIdAndStatus(1L, CardStatus.ACTIVE))
             .thenReturn(Arrays.asList(activeCard1, activeCard2));
         
         CardResponse response1 = new CardResponse();
@@ -0,0 +1,118 @@
+package bank.card.management.service;
+
+import bank.card.management.dto.response.AdminCardResponse;
+import bank.card.management.dto.response.CursorPageResponse;
+import bank.card.management.dto.response.UserResponse;
+import bank.card.management.support.CardFixtures;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Число SQL-запросов на страницу из 100 строк не должно зависеть от числа строк (N+1)
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Обновление списка отозванных пользователей выполняет свой запрос и исказило бы общий счётчик статистики;
+        // фоновые задачи шифрования отключены в src/test/resources/config/application.yml
+        "jwt.revocation-refresh-interval=3600000"
+})
+class ListingQueryCountTest {
+    
+    private static final int PAGE_SIZE = 100;
+    // Больше страницы, чтобы Page выполнял count-запрос
+    private static final int ROW_COUNT = 150;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private CardService cardService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private CardFixtures fixtures;
+    private String prefix;
+    private Statistics statistics;
+    
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate);
+        prefix = fixtures.createUsers("count", ROW_COUNT);
+        // Каждая карта принадлежит своему пользователю: прокси User на странице все разные
+        fixtures.insertCardPerUser(prefix);
+        
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteUsers(prefix);
+    }
+    
+    @Test
+    void testGetAllUsers_LoadsRolesInOneBatch() {
+        Pageable pageable = PageRequest.of(0, PAGE_SIZE, Sort.by("id").descending());
+        statistics.clear();
+        
+        Page<UserResponse> page = userService.getAllUsers(pageable);
+        
+        assertEquals(PAGE_SIZE, page.getNumberOfElements());
+        assertTrue(page.getContent().stream().allMatch(user -> user.getRoles().contains("USER")));
+        // Страница пользователей, count(*) и роли всех 100 пользователей одним запросом
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+    
+    @Test
+    void testGetAllUsersSlice_LoadsRolesInOneBatch() {
+        Pageable pageable = PageRequest.of(0, PAGE_SIZE, Sort.by("id").descending());
+        statistics.clear();
+        
+        Slice<UserResponse> slice = userService.getAllUsersSlice(pageable);
+        
+        assertEquals(PAGE_SIZE, slice.getNumberOfElements());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+    
+    @Test
+    void testGetAllCards_DoesNotLoadUsers() {
+        Pageable pageable = PageRequest.of(0, PAGE_SIZE, Sort.by("id").descending());
+        statistics.clear();
+        
+        Page<AdminCardResponse> page = cardService.getAllCards(pageable);
+        
+        assertEquals(PAGE_SIZE, page.getNumberOfElements());
+        assertTrue(page.getContent().stream().allMatch(card -> card.getUserId() != null));
+        // Проекция и count(*); userId читается из bank_cards.user_id
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+    
+    @Test
+    void testScrollAllCards_DoesNotInitializeUserProxies() {
+        statistics.clear();
+        
+        CursorPageResponse<AdminCardResponse> response = cardService.scrollAllCards("id", null, PAGE_SIZE);
+        
+        assertEquals(PAGE_SIZE, response.getContent().size());
+        assertTrue(response.getContent().stream().allMatch(card -> card.getUserId() != null));
+        // Идентификатор прокси известен без загрузки, поэтому users не запрашивается
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+    }
+}
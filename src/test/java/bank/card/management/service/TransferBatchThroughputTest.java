@@ -0,0 +1,96 @@
+package bank.card.management.service;
+
+import bank.card.management.dto.request.BatchTransferRequest;
+import bank.card.management.dto.request.TransferRequest;
+import bank.card.management.dto.response.BatchTransferResponse;
+import bank.card.management.entity.BankCard;
+import bank.card.management.entity.User;
+import bank.card.management.repository.BankCardRepository;
+import bank.card.management.support.CardFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 1 000 одиночных переводов против одного пакета из 1 000; замер времени, поэтому запуск только явно: -Dbenchmark=true
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransferBatchThroughputTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TransferBatchThroughputTest.class);
+    
+    private static final int CARD_COUNT = 8;
+    private static final int TRANSFERS = 1000;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100000.00");
+    
+    @Autowired
+    private TransferService transferService;
+    
+    @Autowired
+    private BankCardRepository cardRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private CardFixtures fixtures;
+    private User user;
+    private List<Long> cardIds;
+    
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate);
+        user = fixtures.createUser("batch");
+        fixtures.insertCards(user, CARD_COUNT, INITIAL_BALANCE, 0);
+        cardIds = fixtures.cardIds(user);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteUser(user);
+    }
+    
+    @Test
+    void testBatchThroughputComparedToSingleTransfers() {
+        List<TransferRequest> transfers = new ArrayList<>(TRANSFERS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            transfers.add(new TransferRequest(
+                    cardIds.get(i % CARD_COUNT), cardIds.get((i + 1) % CARD_COUNT), new BigDecimal("1.00")));
+        }
+        
+        // Прогрев, чтобы в замер не попали инициализация пула соединений и JIT
+        transferService.transferBetweenOwnCards(transfers.get(0), user.getUsername(), null);
+        transferService.transferBatch(new BatchTransferRequest(transfers.subList(0, 10)), user.getUsername());
+        
+        long singleStart = System.nanoTime();
+        for (TransferRequest transfer : transfers) {
+            transferService.transferBetweenOwnCards(transfer, user.getUsername(), null);
+        }
+        long singleNanos = System.nanoTime() - singleStart;
+        
+        long batchStart = System.nanoTime();
+        BatchTransferResponse response = transferService.transferBatch(
+                new BatchTransferRequest(transfers), user.getUsername());
+        long batchNanos = System.nanoTime() - batchStart;
+        
+        logger.info("Single transfers: {} ops/s, batch: {} ops/s",
+                TRANSFERS * 1_000_000_000L / singleNanos, TRANSFERS * 1_000_000_000L / batchNanos);
+        
+        assertEquals(TRANSFERS, response.getSucceeded());
+        assertEquals(0, response.getFailed());
+        BigDecimal total = cardRepository.findAllById(cardIds).stream()
+                .map(BankCard::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARD_COUNT)).compareTo(total));
+    }
+}
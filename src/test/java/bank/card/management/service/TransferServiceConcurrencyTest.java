@@ -0,0 +1,145 @@
+package bank.card.management.service;
+
+import bank.card.management.config.TransferProperties;
+import bank.card.management.config.TransferProperties.ConcurrencyMode;
+import bank.card.management.dto.request.TransferRequest;
+import bank.card.management.entity.BankCard;
+import bank.card.management.entity.User;
+import bank.card.management.exception.TransferException;
+import bank.card.management.repository.BankCardRepository;
+import bank.card.management.support.CardFixtures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Тысячи переводов из 16 потоков в каждом режиме конкуренции при низкой (у каждой задачи своя пара карт)
+// и высокой (все задачи делят 4 карты) конкуренции; логирует ops/s и число отказов для docs/transfer-concurrency.md.
+// Запуск только явно: -Dbenchmark=true
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransferServiceConcurrencyTest {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TransferServiceConcurrencyTest.class);
+    
+    private static final int CARD_COUNT = 64;
+    private static final int HOT_CARD_COUNT = 4;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS = 4000;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100000.00");
+    
+    @Autowired
+    private TransferService transferService;
+    
+    @Autowired
+    private BankCardRepository cardRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransferProperties transferProperties;
+    
+    private CardFixtures fixtures;
+    private User user;
+    private List<Long> cardIds;
+    
+    @BeforeEach
+    void setUp() {
+        fixtures = new CardFixtures(jdbcTemplate);
+        user = fixtures.createUser("stress");
+        fixtures.insertCards(user, CARD_COUNT, INITIAL_BALANCE, 0);
+        cardIds = fixtures.cardIds(user);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        transferProperties.setConcurrencyMode(ConcurrencyMode.ATOMIC);
+        fixtures.deleteUser(user);
+    }
+    
+    static Stream<Arguments> modesAndContention() {
+        return Arrays.stream(ConcurrencyMode.values())
+                .flatMap(mode -> Stream.of(Arguments.of(mode, false), Arguments.of(mode, true)));
+    }
+    
+    @ParameterizedTest(name = "{0}, high contention: {1}")
+    @MethodSource("modesAndContention")
+    void testConcurrentCrossTransfers_ConserveBalanceWithoutDeadlocks(ConcurrencyMode mode, boolean highContention)
+            throws Exception {
+        transferProperties.setConcurrencyMode(mode);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        
+        for (int i = 0; i < TRANSFERS; i++) {
+            Long fromId;
+            Long toId;
+            if (highContention) {
+                // Соседние задачи переводят в противоположных направлениях (A→B и B→A) между 4 картами
+                fromId = cardIds.get(i % HOT_CARD_COUNT);
+                toId = cardIds.get((i + 1 + (i / HOT_CARD_COUNT) % (HOT_CARD_COUNT - 1)) % HOT_CARD_COUNT);
+            } else {
+                // 32 пары карт: одновременно выполняемые задачи почти никогда не касаются одних строк
+                int pair = i % (CARD_COUNT / 2);
+                fromId = cardIds.get(2 * pair);
+                toId = cardIds.get(2 * pair + 1);
+            }
+            TransferRequest request = new TransferRequest(
+                    i % 2 == 0 ? fromId : toId,
+                    i % 2 == 0 ? toId : fromId,
+                    new BigDecimal("1.00"));
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    transferService.transferBetweenOwnCards(request, user.getUsername(), null);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+        }
+        
+        long startNanos = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES), "Transfers did not finish in time");
+        long elapsedNanos = System.nanoTime() - startNanos;
+        
+        // В OPTIMISTIC режиме при высокой конкуренции допустим отказ после исчерпания повторов
+        int rejected = 0;
+        if (mode == ConcurrencyMode.OPTIMISTIC) {
+            int before = failures.size();
+            failures.removeIf(TransferException.class::isInstance);
+            rejected = before - failures.size();
+        }
+        logger.info("Transfers: mode={}, contention={}, {} ops/s, {} of {} rejected after retries",
+                mode, highContention ? "high" : "low",
+                (TRANSFERS - rejected) * 1_000_000_000L / elapsedNanos, rejected, TRANSFERS);
+        assertTrue(failures.isEmpty(), () -> "Transfers failed: " + failures.peek());
+        
+        BigDecimal total = cardRepository.findAllById(cardIds).stream()
+                .map(BankCard::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARD_COUNT)).compareTo(total));
+    }
+}
@@ -1,30 +1,56 @@
 package bank.card.management.service;
 
+import bank.card.management.cache.CachedUser;
+import bank.card.management.cache.UserCache;
+import bank.card.management.config.TransferProperties;
+import bank.card.management.config.TransferProperties.ConcurrencyMode;
+import bank.card.management.dto.request.BatchTransferRequest;
 import bank.card.management.dto.request.TransferRequest;
+import bank.card.management.dto.response.BatchTransferItemResponse;
+import bank.card.management.dto.response.BatchTransferResponse;
 import bank.card.management.dto.response.TransferResponse;
 import bank.card.management.entity.BankCard;
 import bank.card.management.entity.CardStatus;
+import bank.card.management.entity.Transfer;
 import bank.card.management.entity.User;
+import bank.card.management.entity.UserStatus;
 import bank.card.management.exception.CardNotActiveException;
 import bank.card.management.exception.CardNotFoundException;
 import bank.card.management.exception.InsufficientBalanceException;
 import bank.card.management.exception.TransferException;
 import bank.card.management.repository.BankCardRepository;
+import bank.card.management.repository.TransferRepository;
 import bank.card.management.repository.UserRepository;
+import bank.card.management.service.impl.OptimisticRetryExecutor;
 import bank.card.management.service.impl.TransferServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,10 +62,23 @@ class TransferServiceImplTest {
     @Mock
     private UserRepository userRepository;
     
-    @InjectMocks
+    @Mock
+    private UserCache userCache;
+    
+    @Mock
+    private TransferRepository transferRepository;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    private TransferProperties transferProperties;
     private TransferServiceImpl transferService;
     
     private User testUser;
+    private CachedUser cachedUser;
     private BankCard fromCard;
     private BankCard toCard;
     
@@ -48,89 +87,111 @@ class TransferServiceImplTest {
         testUser = new User();
         testUser.setId(1L);
         testUser.setUsername("testuser");
+        cachedUser = new CachedUser(1L, "testuser", UserStatus.ACTIVE, List.of());
         
         fromCard = new BankCard();
         fromCard.setId(1L);
         fromCard.setBalance(new BigDecimal("1000.00"));
+        fromCard.setBalanceVersion(0L);
         fromCard.setStatus(CardStatus.ACTIVE);
         fromCard.setUser(testUser);
         
         toCard = new BankCard();
         toCard.setId(2L);
         toCard.setBalance(new BigDecimal("500.00"));
+        toCard.setBalanceVersion(0L);
         toCard.setStatus(CardStatus.ACTIVE);
         toCard.setUser(testUser);
+        
+        transferProperties = new TransferProperties();
+        transferProperties.getRetry().setInitialBackoff(Duration.ZERO);
+        transferService = new TransferServiceImpl(cardRepository, userRepository, userCache, transferRepository,
+                transferProperties, new OptimisticRetryExecutor(transferProperties), transactionTemplate, jdbcTemplate);
+        
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(TransferServiceImplTest::runInTransaction);
+        lenient().when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenAnswer(invocation -> updatedRows(invocation.<List<?>>getArgument(1).size()));
+    }
+    
+    private static int[] updatedRows(int size) {
+        int[] counts = new int[size];
+        Arrays.fill(counts, 1);
+        return counts;
+    }
+    
+    private static Object runInTransaction(InvocationOnMock invocation) {
+        TransactionCallback<?> callback = invocation.getArgument(0);
+        return callback.doInTransaction(null);
     }
     
     @Test
     void testTransferBetweenOwnCards_Success() {
-        TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
+        BigDecimal amount = new BigDecimal("200.00");
+        TransferRequest request = new TransferRequest(1L, 2L, amount);
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndUser(2L, testUser)).thenReturn(Optional.of(toCard));
-        when(cardRepository.save(any(BankCard.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.debitActiveCard(eq(1L), eq(1L), eq(amount))).thenReturn(1);
+        when(cardRepository.creditActiveCard(eq(2L), eq(1L), eq(amount))).thenReturn(1);
         
-        TransferResponse response = transferService.transferBetweenOwnCards(request, "testuser");
+        TransferResponse response = transferService.transferBetweenOwnCards(request, "testuser", null);
         
         assertNotNull(response);
         assertNotNull(response.getTransactionId());
         assertEquals("Transfer completed successfully", response.getMessage());
-        assertEquals(new BigDecimal("800.00"), fromCard.getBalance());
-        assertEquals(new BigDecimal("700.00"), toCard.getBalance());
-        verify(cardRepository, times(2)).save(any(BankCard.class));
+        verify(cardRepository, never()).findByIdAndUserId(any(), any());
+        verify(cardRepository, never()).save(any(BankCard.class));
     }
     
     @Test
     void testTransferBetweenOwnCards_UserNotFound() {
         TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.empty());
+        when(userCache.get("testuser")).thenThrow(new UsernameNotFoundException("User not found: testuser"));
         
-        assertThrows(UsernameNotFoundException.class, 
-            () -> transferService.transferBetweenOwnCards(request, "testuser"));
+        assertThrows(UsernameNotFoundException.class,
+            () -> transferService.transferBetweenOwnCards(request, "testuser", null));
         
-        verify(cardRepository, never()).save(any(BankCard.class));
+        verify(cardRepository, never()).debitActiveCard(any(), any(), any());
     }
     
     @Test
     void testTransferBetweenOwnCards_FromCardNotFound() {
         TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.empty());
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.debitActiveCard(eq(1L), eq(1L), any())).thenReturn(0);
+        when(cardRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.empty());
         
-        assertThrows(CardNotFoundException.class, 
-            () -> transferService.transferBetweenOwnCards(request, "testuser"));
+        assertThrows(CardNotFoundException.class,
+            () -> transferService.transferBetweenOwnCards(request, "testuser", null));
         
-        verify(cardRepository, never()).save(any(BankCard.class));
+        verify(cardRepository, never()).creditActiveCard(any(), any(), any());
     }
     
     @Test
     void testTransferBetweenOwnCards_ToCardNotFound() {
         TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndUser(2L, testUser)).thenReturn(Optional.empty());
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.debitActiveCard(eq(1L), eq(1L), any())).thenReturn(1);
+        when(cardRepository.creditActiveCard(eq(2L), eq(1L), any())).thenReturn(0);
+        when(cardRepository.findByIdAndUserId(2L, 1L)).thenReturn(Optional.empty());
         
-        assertThrows(CardNotFoundException.class, 
-            () -> transferService.transferBetweenOwnCards(request, "testuser"));
-        
-        verify(cardRepository, never()).save(any(BankCard.class));
+        assertThrows(CardNotFoundException.class,
+            () -> transferService.transferBetweenOwnCards(request, "testuser", null));
     }
     
     @Test
     void testTransferBetweenOwnCards_SameCard() {
         TransferRequest request = new TransferRequest(1L, 1L, new BigDecimal("200.00"));
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(fromCard));
+        when(userCache.get("testuser")).thenReturn(cachedUser);
         
-        assertThrows(TransferException.class, 
-            () -> transferService.transferBetweenOwnCards(request, "testuser"));
+        assertThrows(TransferException.class,
+            () -> transferService.transferBetweenOwnCards(request, "testuser", null));
         
-        verify(cardRepository, never()).save(any(BankCard.class));
+        verify(cardRepository, never()).debitActiveCard(any(), any(), any());
+        verify(cardRepository, never()).creditActiveCard(any(), any(), any());
     }
     
     @Test
@@ -138,14 +199,14 @@ class TransferServiceImplTest {
         fromCard.setStatus(CardStatus.BLOCKED);
         TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndUser(2L, testUser)).thenReturn(Optional.of(toCard));
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.debitActiveCard(eq(1L), eq(1L), any())).thenReturn(0);
+        when(cardRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(fromCard));
         
-        assertThrows(CardNotActiveException.class, 
-            () -> transferService.transferBetweenOwnCards(request, "testuser"));
+        assertThrows(CardNotActiveException.class,
+            () -> transferService.transferBetweenOwnCards(request, "testuser", null));
         
-        verify(cardRepository, never()).save(any(BankCard.class));
+        verify(cardRepository, never()).creditActiveCard(any(), any(), any());
     }
     
     @Test
@@ -153,44 +214,322 @@ class TransferServiceImplTest {
         toCard.setStatus(CardStatus.BLOCKED);
         TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndUser(2L, testUser)).thenReturn(Optional.of(toCard));
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.debitActiveCard(eq(1L), eq(1L), any())).thenReturn(1);
+        when(cardRepository.creditActiveCard(eq(2L), eq(1L), any())).thenReturn(0);
+        when(cardRepository.findByIdAndUserId(2L, 1L)).thenReturn(Optional.of(toCard));
         
-        assertThrows(CardNotActiveException.class, 
-            () -> transferService.transferBetweenOwnCards(request, "testuser"));
-        
-        verify(cardRepository, never()).save(any(BankCard.class));
+        assertThrows(CardNotActiveException.class,
+            () -> transferService.transferBetweenOwnCards(request, "testuser", null));
     }
     
     @Test
     void testTransferBetweenOwnCards_InsufficientBalance() {
         TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("2000.00"));
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndUser(2L, testUser)).thenReturn(Optional.of(toCard));
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.debitActiveCard(eq(1L), eq(1L), any())).thenReturn(0);
+        when(cardRepository.findByIdAndUserId(1L, 1L)).thenReturn(Optional.of(fromCard));
         
-        assertThrows(InsufficientBalanceException.class, 
-            () -> transferService.transferBetweenOwnCards(request, "testuser"));
+        InsufficientBalanceException exception = assertThrows(InsufficientBalanceException.class,
+            () -> transferService.transferBetweenOwnCards(request, "testuser", null));
         
-        verify(cardRepository, never()).save(any(BankCard.class));
+        assertTrue(exception.getMessage().contains("1000.00"));
+        verify(cardRepository, never()).creditActiveCard(any(), any(), any());
     }
     
     @Test
-    void testTransferBetweenOwnCards_ExactBalance() {
-        TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("1000.00"));
+    void testTransferBetweenOwnCards_UpdatesCardsInAscendingIdOrder() {
+        BigDecimal amount = new BigDecimal("100.00");
+        TransferRequest request = new TransferRequest(2L, 1L, amount);
         
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(cardRepository.findByIdAndUser(1L, testUser)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findByIdAndUser(2L, testUser)).thenReturn(Optional.of(toCard));
-        when(cardRepository.save(any(BankCard.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.creditActiveCard(eq(1L), eq(1L), eq(amount))).thenReturn(1);
+        when(cardRepository.debitActiveCard(eq(2L), eq(1L), eq(amount))).thenReturn(1);
         
-        TransferResponse response = transferService.transferBetweenOwnCards(request, "testuser");
+        transferService.transferBetweenOwnCards(request, "testuser", null);
         
-        assertNotNull(response);
-        assertEquals(new BigDecimal("0.00"), fromCard.getBalance());
-        assertEquals(new BigDecimal("1500.00"), toCard.getBalance());
-        verify(cardRepository, times(2)).save(any(BankCard.class));
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).creditActiveCard(eq(1L), eq(1L), eq(amount));
+        inOrder.verify(cardRepository).debitActiveCard(eq(2L), eq(1L), eq(amount));
+    }
+    
+    @Test
+    void testTransferBetweenOwnCards_Pessimistic_LocksCardsInAscendingIdOrder() {
+        transferProperties.setConcurrencyMode(ConcurrencyMode.PESSIMISTIC);
+        TransferRequest request = new TransferRequest(2L, 1L, new BigDecimal("100.00"));
+        
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findAllByIdInAndUserIdForUpdate(List.of(1L, 2L), 1L))
+                .thenReturn(List.of(fromCard, toCard));
+        
+        transferService.transferBetweenOwnCards(request, "testuser", null);
+        
+        assertEquals(new BigDecimal("1100.00"), fromCard.getBalance());
+        assertEquals(new BigDecimal("400.00"), toCard.getBalance());
+        List<Object[]> balances = capturedBalanceUpdates().get(0);
+        assertArrayEquals(new Object[] {new BigDecimal("1100.00"), 1L, 0L}, balances.get(0));
+        assertArrayEquals(new Object[] {new BigDecimal("400.00"), 2L, 0L}, balances.get(1));
+        verify(cardRepository, never()).debitActiveCard(any(), any(), any());
+    }
+    
+    @Test
+    void testTransferBetweenOwnCards_Pessimistic_InsufficientBalance() {
+        transferProperties.setConcurrencyMode(ConcurrencyMode.PESSIMISTIC);
+        TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("2000.00"));
+        
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findAllByIdInAndUserIdForUpdate(List.of(1L, 2L), 1L))
+                .thenReturn(List.of(fromCard, toCard));
+        
+        assertThrows(InsufficientBalanceException.class,
+            () -> transferService.transferBetweenOwnCards(request, "testuser", null));
+        
+        assertEquals(new BigDecimal("1000.00"), fromCard.getBalance());
+        assertEquals(new BigDecimal("500.00"), toCard.getBalance());
+    }
+    
+    @Test
+    void testTransferBetweenOwnCards_Optimistic_Success() {
+        transferProperties.setConcurrencyMode(ConcurrencyMode.OPTIMISTIC);
+        TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
+        
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findAllByIdInAndUserId(List.of(1L, 2L), 1L))
+                .thenReturn(List.of(fromCard, toCard));
+        
+        transferService.transferBetweenOwnCards(request, "testuser", null);
+        
+        assertEquals(new BigDecimal("800.00"), fromCard.getBalance());
+        assertEquals(new BigDecimal("700.00"), toCard.getBalance());
+        verify(cardRepository, never()).findAllByIdInAndUserIdForUpdate(any(), any());
+    }
+    
+    @Test
+    void testTransferBetweenOwnCards_Optimistic_RetriesOnVersionConflict() {
+        transferProperties.setConcurrencyMode(ConcurrencyMode.OPTIMISTIC);
+        TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
+        
+        doThrow(new ObjectOptimisticLockingFailureException(BankCard.class, 1L))
+                .doAnswer(TransferServiceImplTest::runInTransaction)
+                .when(transactionTemplate).execute(any());
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findAllByIdInAndUserId(List.of(1L, 2L), 1L))
+                .thenReturn(List.of(fromCard, toCard));
+        
+        TransferResponse response = transferService.transferBetweenOwnCards(request, "testuser", null);
+        
+        assertNotNull(response.getTransactionId());
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+    
+    @Test
+    void testTransferBetweenOwnCards_Optimistic_RetriesWhenBalanceVersionChanged() {
+        transferProperties.setConcurrencyMode(ConcurrencyMode.OPTIMISTIC);
+        TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
+        
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findAllByIdInAndUserId(List.of(1L, 2L), 1L))
+                .thenAnswer(invocation -> {
+                    // Каждая попытка читает карты заново, как новая транзакция
+                    fromCard.setBalance(new BigDecimal("1000.00"));
+                    toCard.setBalance(new BigDecimal("500.00"));
+                    return List.of(fromCard, toCard);
+                });
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenReturn(new int[] {0, 1}, new int[] {1, 1});
+        
+        transferService.transferBetweenOwnCards(request, "testuser", null);
+        
+        verify(transactionTemplate, times(2)).execute(any());
+        List<List<Object[]>> attempts = capturedBalanceUpdates();
+        assertEquals(2, attempts.size());
+        for (List<Object[]> balances : attempts) {
+            assertArrayEquals(new Object[] {new BigDecimal("800.00"), 1L, 0L}, balances.get(0));
+        }
+        verify(transferRepository, times(1)).save(any(Transfer.class));
+    }
+    
+    @Test
+    void testTransferBetweenOwnCards_Optimistic_GivesUpAfterMaxAttempts() {
+        transferProperties.setConcurrencyMode(ConcurrencyMode.OPTIMISTIC);
+        transferProperties.getRetry().setMaxAttempts(3);
+        TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
+        
+        doThrow(new ObjectOptimisticLockingFailureException(BankCard.class, 1L))
+                .when(transactionTemplate).execute(any());
+        
+        assertThrows(TransferException.class,
+            () -> transferService.transferBetweenOwnCards(request, "testuser", null));
+        
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+    
+    @Test
+    void testTransferBetweenOwnCards_RecordsTransferInLedger() {
+        BigDecimal amount = new BigDecimal("200.00");
+        TransferRequest request = new TransferRequest(1L, 2L, amount);
+        
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(transferRepository.findByUserIdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.empty());
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+        when(cardRepository.debitActiveCard(eq(1L), eq(1L), eq(amount))).thenReturn(1);
+        when(cardRepository.creditActiveCard(eq(2L), eq(1L), eq(amount))).thenReturn(1);
+        
+        TransferResponse response = transferService.transferBetweenOwnCards(request, "testuser", "key-1");
+        
+        ArgumentCaptor<Transfer> captor = ArgumentCaptor.forClass(Transfer.class);
+        verify(transferRepository).save(captor.capture());
+        Transfer saved = captor.getValue();
+        assertEquals(response.getTransactionId(), saved.getTransactionId());
+        assertEquals(testUser, saved.getUser());
+        assertEquals(1L, saved.getFromCardId());
+        assertEquals(2L, saved.getToCardId());
+        assertEquals(amount, saved.getAmount());
+        assertEquals("key-1", saved.getIdempotencyKey());
+    }
+    
+    @Test
+    void testTransferBetweenOwnCards_DuplicateIdempotencyKey_ReturnsOriginalResponse() {
+        TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
+        Transfer previous = ledgerEntry(request, "key-1");
+        
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(transferRepository.findByUserIdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.of(previous));
+        
+        TransferResponse response = transferService.transferBetweenOwnCards(request, "testuser", "key-1");
+        
+        assertEquals(previous.getTransactionId(), response.getTransactionId());
+        verify(cardRepository, never()).debitActiveCard(any(), any(), any());
+        verify(transferRepository, never()).save(any(Transfer.class));
+    }
+    
+    @Test
+    void testTransferBetweenOwnCards_IdempotencyKeyReusedForDifferentTransfer() {
+        TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
+        Transfer previous = ledgerEntry(new TransferRequest(1L, 2L, new BigDecimal("300.00")), "key-1");
+        
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(transferRepository.findByUserIdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.of(previous));
+        
+        assertThrows(TransferException.class,
+            () -> transferService.transferBetweenOwnCards(request, "testuser", "key-1"));
+        
+        verify(cardRepository, never()).debitActiveCard(any(), any(), any());
+    }
+    
+    @Test
+    void testTransferBetweenOwnCards_ConcurrentDuplicate_ReturnsWinningTransfer() {
+        TransferRequest request = new TransferRequest(1L, 2L, new BigDecimal("200.00"));
+        Transfer winner = ledgerEntry(request, "key-1");
+        
+        doThrow(new DataIntegrityViolationException("idx_transfers_user_idempotency_key"))
+                .doAnswer(TransferServiceImplTest::runInTransaction)
+                .when(transactionTemplate).execute(any());
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(transferRepository.findByUserIdAndIdempotencyKey(1L, "key-1")).thenReturn(Optional.of(winner));
+        
+        TransferResponse response = transferService.transferBetweenOwnCards(request, "testuser", "key-1");
+        
+        assertEquals(winner.getTransactionId(), response.getTransactionId());
+    }
+    
+    @Test
+    void testTransferBatch_LocksAllCardsOnceAndAppliesLegsInOrder() {
+        BankCard thirdCard = new BankCard();
+        thirdCard.setId(3L);
+        thirdCard.setBalance(new BigDecimal("0.00"));
+        thirdCard.setStatus(CardStatus.ACTIVE);
+        thirdCard.setUser(testUser);
+        BatchTransferRequest request = new BatchTransferRequest(List.of(
+                new TransferRequest(1L, 3L, new BigDecimal("300.00")),
+                new TransferRequest(3L, 2L, new BigDecimal("100.00")),
+                new TransferRequest(2L, 1L, new BigDecimal("600.00"))));
+        
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findAllByIdInAndUserIdForUpdate(Set.of(1L, 2L, 3L), 1L))
+                .thenReturn(List.of(fromCard, toCard, thirdCard));
+        
+        BatchTransferResponse response = transferService.transferBatch(request, "testuser");
+        
+        assertEquals(3, response.getSucceeded());
+        assertEquals(0, response.getFailed());
+        assertEquals(new BigDecimal("1300.00"), fromCard.getBalance());
+        assertEquals(new BigDecimal("0.00"), toCard.getBalance());
+        assertEquals(new BigDecimal("200.00"), thirdCard.getBalance());
+        List<List<Object[]>> balanceBatches = capturedBalanceUpdates();
+        assertEquals(1, balanceBatches.size());
+        assertEquals(List.of(1L, 2L, 3L), balanceBatches.get(0).stream().map(args -> args[1]).toList());
+        verify(userCache, times(1)).get("testuser");
+        verify(cardRepository, times(1)).findAllByIdInAndUserIdForUpdate(any(), any());
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(cardRepository, never()).debitActiveCard(any(), any(), any());
+    }
+    
+    @Test
+    void testTransferBatch_ReportsFailedItemsWithoutAffectingOthers() {
+        BatchTransferRequest request = new BatchTransferRequest(List.of(
+                new TransferRequest(1L, 2L, new BigDecimal("200.00")),
+                new TransferRequest(2L, 1L, new BigDecimal("5000.00")),
+                new TransferRequest(1L, 1L, new BigDecimal("10.00")),
+                new TransferRequest(1L, 99L, new BigDecimal("10.00"))));
+        
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findAllByIdInAndUserIdForUpdate(Set.of(1L, 2L, 99L), 1L))
+                .thenReturn(List.of(fromCard, toCard));
+        
+        BatchTransferResponse response = transferService.transferBatch(request, "testuser");
+        
+        assertEquals(1, response.getSucceeded());
+        assertEquals(3, response.getFailed());
+        List<BatchTransferItemResponse> results = response.getResults();
+        assertTrue(results.get(0).isSuccess());
+        assertNotNull(results.get(0).getTransactionId());
+        assertFalse(results.get(1).isSuccess());
+        assertNull(results.get(1).getTransactionId());
+        assertEquals("Cannot transfer to the same card", results.get(2).getMessage());
+        assertEquals("To card not found or access denied", results.get(3).getMessage());
+        assertEquals(new BigDecimal("800.00"), fromCard.getBalance());
+        assertEquals(new BigDecimal("700.00"), toCard.getBalance());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testTransferBatch_RecordsOnlySuccessfulTransfersInLedger() {
+        BatchTransferRequest request = new BatchTransferRequest(List.of(
+                new TransferRequest(1L, 2L, new BigDecimal("200.00")),
+                new TransferRequest(1L, 2L, new BigDecimal("5000.00"))));
+        
+        when(userCache.get("testuser")).thenReturn(cachedUser);
+        when(cardRepository.findAllByIdInAndUserIdForUpdate(Set.of(1L, 2L), 1L))
+                .thenReturn(List.of(fromCard, toCard));
+        
+        BatchTransferResponse response = transferService.transferBatch(request, "testuser");
+        
+        ArgumentCaptor<List<Transfer>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transferRepository).saveAll(captor.capture());
+        List<Transfer> saved = captor.getValue();
+        assertEquals(1, saved.size());
+        assertEquals(response.getResults().get(0).getTransactionId(), saved.get(0).getTransactionId());
+        assertNull(saved.get(0).getIdempotencyKey());
+        verify(transferRepository, never()).save(any(Transfer.class));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<List<Object[]>> capturedBalanceUpdates() {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(anyString(), captor.capture());
+        return captor.getAllValues();
+    }
+    
+    private Transfer ledgerEntry(TransferRequest request, String idempotencyKey) {
+        Transfer transfer = new Transfer();
+        transfer.setTransactionId(UUID.randomUUID());
+        transfer.setUser(testUser);
+        transfer.setFromCardId(request.getFromCardId());
+        transfer.setToCardId(request.getToCardId());
+        transfer.setAmount(request.getAmount());
+        transfer.setIdempotencyKey(idempotencyKey);
+        return transfer;
     }
 }
@@ -1,5 +1,6 @@
 package bank.card.management.service;
 
+import bank.card.management.cache.UserCache;
 import bank.card.management.dto.response.UserResponse;
 import bank.card.management.entity.Role;
 import bank.card.management.entity.User;
@@ -7,6 +8,7 @@ import bank.card.management.entity.UserStatus;
 import bank.card.management.exception.UserNotFoundException;
 import bank.card.management.mapper.UserMapper;
 import bank.card.management.repository.UserRepository;
+import bank.card.management.security.TokenRevocationRegistry;
 import bank.card.management.service.impl.UserServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,6 +20,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.util.Arrays;
 import java.util.HashSet;
@@ -25,6 +29,7 @@ import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +41,12 @@ class UserServiceImplTest {
     @Mock
     private UserMapper userMapper;
     
+    @Mock
+    private UserCache userCache;
+    
+    @Mock
+    private TokenRevocationRegistry revocationRegistry;
+    
     @InjectMocks
     private UserServiceImpl userService;
     
@@ -86,6 +97,33 @@ class UserServiceImplTest {
         verify(userMapper, times(1)).toUserResponse(testUser);
     }
     
+    @Test
+    void testGetAllUsersSlice_NoCountQuery() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(userRepository.findSliceBy(pageable)).thenReturn(new SliceImpl<>(Arrays.asList(testUser), pageable, true));
+        when(userMapper.toUserResponse(testUser)).thenReturn(userResponse);
+        
+        Slice<UserResponse> result = userService.getAllUsersSlice(pageable);
+        
+        assertEquals(1, result.getContent().size());
+        assertTrue(result.hasNext());
+        verify(userRepository, never()).findAll(any(Pageable.class));
+        verify(userRepository, never()).count();
+    }
+    
+    @Test
+    void testGetAllUsersWithApproximateTotal_UsesEstimate() {
+        Pageable pageable = PageRequest.of(0, 1);
+        when(userRepository.findSliceBy(pageable)).thenReturn(new SliceImpl<>(Arrays.asList(testUser), pageable, true));
+        when(userMapper.toUserResponse(testUser)).thenReturn(userResponse);
+        when(userRepository.estimateCount()).thenReturn(125_000L);
+        
+        Page<UserResponse> result = userService.getAllUsersWithApproximateTotal(pageable);
+        
+        assertEquals(125_000L, result.getTotalElements());
+        verify(userRepository, never()).count();
+    }
+    
     @Test
     void testGetUserById_Success() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
@@ -112,22 +150,25 @@ class UserServiceImplTest {
     
     @Test
     void testDeleteUser_Success() {
-        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         
         userService.deleteUser(1L);
         
-        verify(userRepository, times(1)).existsById(1L);
-        verify(userRepository, times(1)).deleteById(1L);
+        verify(userRepository, times(1)).delete(testUser);
+        verify(userRepository, times(1)).recordDeletion("testuser");
+        verify(userCache, times(1)).evict("testuser");
+        verify(revocationRegistry, times(1)).revoke("testuser");
     }
     
     @Test
     void testDeleteUser_UserNotFound() {
-        when(userRepository.existsById(1L)).thenReturn(false);
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
         
         assertThrows(UserNotFoundException.class, 
             () -> userService.deleteUser(1L));
         
-        verify(userRepository, never()).deleteById(anyLong());
+        verify(userRepository, never()).delete(any(User.class));
+        verify(userCache, never()).evict(anyString());
     }
     
     @Test
@@ -144,6 +185,8 @@ class UserServiceImplTest {
         assertNotNull(result);
         assertEquals(UserStatus.BLOCKED, testUser.getStatus());
         verify(userRepository, times(1)).save(testUser);
+        verify(userCache, times(1)).evict("testuser");
+        verify(revocationRegistry, times(1)).revoke("testuser");
     }
     
     @Test
@@ -162,6 +205,8 @@ class UserServiceImplTest {
         assertNotNull(result);
         assertEquals(UserStatus.ACTIVE, testUser.getStatus());
         verify(userRepository, times(1)).save(testUser);
+        verify(userCache, times(1)).evict("testuser");
+        verify(revocationRegistry, times(1)).restore("testuser");
     }
     
     @Test
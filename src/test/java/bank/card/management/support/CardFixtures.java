@@ -0,0 +1,111 @@
+package bank.card.management.support;
+
+import bank.card.management.entity.BankCard;
+import bank.card.management.entity.CardStatus;
+import bank.card.management.entity.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+// Наполнение базы для тестов с контекстом Spring: пользователи с ролью USER и карты с балансами.
+// Карты вставляются одной SQL-командой, чтобы сотни тысяч строк не проходили через JPA
+public class CardFixtures {
+    
+    public static final BigDecimal BALANCE = new BigDecimal("100.00");
+    
+    private static final String INSERT_USERS = "INSERT INTO users (username, password, email, first_name, " +
+            "last_name, status, created_at, updated_at) " +
+            "SELECT ? || g, 'password', ? || g || '@example.com', 'Fixture', 'Test', 'ACTIVE', now(), now() " +
+            "FROM generate_series(1, ?) g";
+    
+    private static final String INSERT_USER_ROLES = "INSERT INTO user_roles (user_id, role_id) " +
+            "SELECT u.id, r.id FROM users u, roles r WHERE u.username LIKE ? || '%' AND r.name = 'USER'";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public CardFixtures(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    // Пользователи {name}-{случайный суффикс}-1 … -count; возвращает общий префикс их имён
+    public String createUsers(String name, int count) {
+        String prefix = name + "-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        jdbcTemplate.update(INSERT_USERS, prefix, prefix, count);
+        jdbcTemplate.update(INSERT_USER_ROLES, prefix);
+        return prefix;
+    }
+    
+    public User createUser(String name) {
+        String username = createUsers(name, 1) + 1;
+        User user = new User();
+        user.setId(jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username));
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setEmail(username + "@example.com");
+        user.setFirstName("Fixture");
+        user.setLastName("Test");
+        return user;
+    }
+    
+    public void insertCards(User user, int count) {
+        insertCards(user, count, BALANCE, 0);
+    }
+    
+    // Каждая blockedEvery-я карта заблокирована, 0 — ни одна
+    public void insertCards(User user, int count, BigDecimal balance, int blockedEvery) {
+        insertCards("SELECT g, ?::bigint AS user_id, " +
+                "CASE WHEN g % NULLIF(?, 0) = 0 THEN 'BLOCKED' ELSE 'ACTIVE' END AS status " +
+                "FROM generate_series(1, ?) g", user.getId(), blockedEvery, count, balance);
+    }
+    
+    // По одной карте на каждого пользователя с префиксом из createUsers
+    public void insertCardPerUser(String usernamePrefix) {
+        insertCards("SELECT u.id AS g, u.id AS user_id, 'ACTIVE' AS status FROM users u " +
+                "WHERE u.username LIKE ? || '%'", usernamePrefix, BALANCE);
+    }
+    
+    public List<Long> cardIds(User user) {
+        return jdbcTemplate.queryForList("SELECT id FROM bank_cards WHERE user_id = ? ORDER BY id", Long.class,
+                user.getId());
+    }
+    
+    // Несохранённая карта для тестов, которые замеряют саму запись через JPA
+    public static BankCard newCard(User user, int index) {
+        BankCard card = new BankCard();
+        card.setCardNumber((user.getUsername() + "-" + index).getBytes(StandardCharsets.UTF_8));
+        card.setCardNumberMasked("**** **** **** " + String.format("%04d", index % 10000));
+        card.setOwner("Fixture Test");
+        card.setExpiryDate(LocalDate.now().plusYears(1));
+        card.setStatus(CardStatus.ACTIVE);
+        card.setBalance(BALANCE);
+        card.setUser(user);
+        return card;
+    }
+    
+    public void deleteUser(User user) {
+        jdbcTemplate.update("DELETE FROM bank_cards WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+    }
+    
+    public void deleteUsers(String usernamePrefix) {
+        jdbcTemplate.update("DELETE FROM bank_cards WHERE user_id IN " +
+                "(SELECT id FROM users WHERE username LIKE ? || '%')", usernamePrefix);
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ? || '%'", usernamePrefix);
+    }
+    
+    // source отдаёт номер строки g, user_id и status; последний параметр — баланс каждой карты.
+    // Шифртекст — 45 псевдослучайных байт, как у настоящего номера в формате EncryptionUtil
+    private void insertCards(String source, Object... args) {
+        jdbcTemplate.update("WITH cards AS (INSERT INTO bank_cards (card_number_bin, card_number_masked, owner, " +
+                "expiry_date, status, user_id, created_at, updated_at, version) " +
+                "SELECT decode('01' || md5(g::text) || md5((g + 1)::text) || left(md5((g + 2)::text), 24), 'hex'), " +
+                "'**** **** **** ' || lpad((g % 10000)::text, 4, '0'), 'Owner ' || md5(g::text), CURRENT_DATE + 365, " +
+                "status, user_id, now(), now(), 0 " +
+                "FROM (" + source + ") s RETURNING id) " +
+                "INSERT INTO card_balances (card_id, balance) SELECT id, ? FROM cards", args);
+    }
+}
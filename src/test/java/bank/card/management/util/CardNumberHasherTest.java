@@ -0,0 +1,45 @@
+package bank.card.management.util;
+
+import bank.card.management.config.EncryptionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardNumberHasherTest {
+    
+    private CardNumberHasher cardNumberHasher;
+    
+    @BeforeEach
+    void setUp() {
+        cardNumberHasher = new CardNumberHasher(new EncryptionProperties());
+    }
+    
+    @Test
+    void testHash_DeterministicHex() {
+        String hash = cardNumberHasher.hash("1234567890123456");
+        
+        assertEquals(64, hash.length());
+        assertTrue(hash.matches("[0-9a-f]+"));
+        assertEquals(hash, cardNumberHasher.hash("1234567890123456"));
+    }
+    
+    @Test
+    void testHash_IgnoresFormatting() {
+        assertEquals(cardNumberHasher.hash("1234567890123456"), cardNumberHasher.hash("1234 5678-9012 3456"));
+    }
+    
+    @Test
+    void testHash_SameLastFourDigitsDiffer() {
+        assertNotEquals(cardNumberHasher.hash("1111222233334444"), cardNumberHasher.hash("5555666677774444"));
+    }
+    
+    @Test
+    void testHash_DependsOnKey() {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setBlindIndexKey("another-blind-index-key-2025-minimum-32-characters");
+        CardNumberHasher otherHasher = new CardNumberHasher(properties);
+        
+        assertNotEquals(cardNumberHasher.hash("1234567890123456"), otherHasher.hash("1234567890123456"));
+    }
+}
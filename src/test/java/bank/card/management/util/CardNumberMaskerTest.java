@@ -40,5 +40,47 @@ class CardNumberMaskerTest {
         String lastFour = cardNumberMasker.getLastFourDigits(cardNumber);
         assertEquals("3456", lastFour);
     }
+    
+    @Test
+    void testMaskCardNumber_NonMultipleOfFourDigits() {
+        assertEquals("**** **** *** 2345", cardNumberMasker.maskCardNumber("123456789012345"));
+        assertEquals("**** **** **** *** 6789", cardNumberMasker.maskCardNumber("1234567890123456789"));
+    }
+    
+    @Test
+    void testMaskCardNumber_FewerThanFourDigitsReturnsInput() {
+        assertEquals("ab12cd", cardNumberMasker.maskCardNumber("ab12cd"));
+        assertNull(cardNumberMasker.maskCardNumber((String) null));
+    }
+    
+    @Test
+    void testMaskCardNumber_CharSequenceAndCharArray() {
+        StringBuilder builder = new StringBuilder("1234-5678-9012-3456");
+        assertEquals("**** **** **** 3456", cardNumberMasker.maskCardNumber(builder));
+        assertEquals("**** **** **** 3456", cardNumberMasker.maskCardNumber("1234567890123456".toCharArray()));
+    }
+    
+    @Test
+    void testGetLastFourDigits_FewerThanFourDigits() {
+        assertEquals("12", cardNumberMasker.getLastFourDigits("a1b2"));
+        assertEquals("", cardNumberMasker.getLastFourDigits(null));
+    }
+    
+    @Test
+    void testIsValidLuhn() {
+        assertTrue(cardNumberMasker.isValidLuhn("4111 1111 1111 1111"));
+        assertTrue(cardNumberMasker.isValidLuhn("5500005555555559"));
+        assertFalse(cardNumberMasker.isValidLuhn("4111111111111112"));
+        assertFalse(cardNumberMasker.isValidLuhn("1234567890123456"));
+        // Сумма верная, но 11 цифр — не PAN
+        assertFalse(cardNumberMasker.isValidLuhn("79927398713"));
+    }
+    
+    @Test
+    void testMaskAndValidate() {
+        CardNumberMasker.MaskedCardNumber result = cardNumberMasker.maskAndValidate("4111 1111 1111 1111");
+        
+        assertEquals("**** **** **** 1111", result.masked());
+        assertTrue(result.luhnValid());
+    }
 }
-
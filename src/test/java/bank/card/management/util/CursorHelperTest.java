@@ -0,0 +1,70 @@
+package bank.card.management.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorHelperTest {
+    
+    @Test
+    void testDecode_NoCursorStartsFromBeginning() {
+        ScrollPosition position = CursorHelper.decode(null, "id", CursorHelper.CARD_SORT_KEYS);
+        
+        assertTrue(position.isInitial());
+    }
+    
+    @Test
+    void testEncodeDecode_RoundTripKeepsTypedKeys() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15);
+        String cursor = CursorHelper.encode("createdAt", createdAt, 42L);
+        
+        KeysetScrollPosition position = (KeysetScrollPosition) CursorHelper.decode(
+                cursor, "createdAt", CursorHelper.CARD_SORT_KEYS);
+        
+        assertEquals(createdAt, position.getKeys().get("createdAt"));
+        assertEquals(42L, position.getKeys().get("id"));
+    }
+    
+    @Test
+    void testEncodeDecode_StringValueMayContainSeparator() {
+        String cursor = CursorHelper.encode("owner", "John | Doe", 7L);
+        
+        KeysetScrollPosition position = (KeysetScrollPosition) CursorHelper.decode(
+                cursor, "owner", CursorHelper.CARD_SORT_KEYS);
+        
+        assertEquals("John | Doe", position.getKeys().get("owner"));
+    }
+    
+    @Test
+    void testDecode_CursorForDifferentSortFieldRejected() {
+        String cursor = CursorHelper.encode("id", 42L, 42L);
+        
+        assertThrows(IllegalArgumentException.class,
+                () -> CursorHelper.decode(cursor, "createdAt", CursorHelper.CARD_SORT_KEYS));
+    }
+    
+    @Test
+    void testDecode_GarbageCursorRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> CursorHelper.decode("not a cursor!", "id", CursorHelper.CARD_SORT_KEYS));
+    }
+    
+    @Test
+    void testCreateSort_AddsIdTieBreaker() {
+        Sort sort = CursorHelper.createSort("balance", CursorHelper.CARD_SORT_KEYS);
+        
+        assertEquals(Sort.by("balance").descending().and(Sort.by("id").descending()), sort);
+        assertEquals(Sort.by("id").descending(), CursorHelper.createSort(null, CursorHelper.CARD_SORT_KEYS));
+    }
+    
+    @Test
+    void testCreateSort_UnsupportedFieldRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> CursorHelper.createSort("cardNumber", CursorHelper.CARD_SORT_KEYS));
+    }
+}
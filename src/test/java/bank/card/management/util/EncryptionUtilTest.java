@@ -1,9 +1,23 @@
 package bank.card.management.util;
 
+import bank.card.management.config.EncryptionProperties;
 import bank.card.management.exception.EncryptionException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EncryptionUtilTest {
@@ -91,4 +105,118 @@ class EncryptionUtilTest {
         assertEquals(plainText, decrypted1);
         assertEquals(plainText, decrypted2);
     }
+    
+    @Test
+    void testEncryptDecrypt_Bytes() {
+        byte[] plain = "1234567890123456".getBytes(StandardCharsets.UTF_8);
+        byte[] encrypted = encryptionUtil.encrypt(plain);
+        
+        assertFalse(Arrays.equals(plain, encrypted));
+        assertArrayEquals(plain, encryptionUtil.decrypt(encrypted));
+    }
+    
+    @Test
+    void testEncryptDecrypt_ConcurrentCallersShareCipherPool() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String plainText = String.format("%016d", i);
+                results.add(executor.submit(
+                        () -> plainText.equals(encryptionUtil.decrypt(encryptionUtil.encrypt(plainText)))));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    void testEncrypt_CarriesKeyVersionAndRandomIv() {
+        String encrypted1 = encryptionUtil.encrypt("1234567890123456");
+        String encrypted2 = encryptionUtil.encrypt("1234567890123456");
+        
+        assertTrue(encrypted1.startsWith("v1:"));
+        assertNotEquals(encrypted1, encrypted2);
+        assertFalse(encryptionUtil.needsReencryption(encrypted1));
+    }
+    
+    @Test
+    void testDecrypt_LegacyEcbCiphertext() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(
+                MessageDigest.getInstance("SHA-256").digest(testSecret.getBytes(StandardCharsets.UTF_8)), "AES"));
+        String legacy = Base64.getEncoder().encodeToString(
+                cipher.doFinal("1234567890123456".getBytes(StandardCharsets.UTF_8)));
+        
+        assertEquals("1234567890123456", encryptionUtil.decrypt(legacy));
+        assertTrue(encryptionUtil.needsReencryption(legacy));
+        assertTrue(encryptionUtil.reencrypt(legacy).startsWith("v1:"));
+    }
+    
+    @Test
+    void testKeyRotation_OldVersionStillDecryptsAndIsReencrypted() {
+        String encryptedV1 = encryptionUtil.encrypt("1234567890123456");
+        
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setSecret(testSecret);
+        properties.setKeyRing(Map.of(1, testSecret, 2, "rotated-secret-key-2025-minimum-32-characters"));
+        properties.setActiveKeyVersion(2);
+        EncryptionUtil rotated = new EncryptionUtil(properties);
+        
+        assertEquals("1234567890123456", rotated.decrypt(encryptedV1));
+        assertTrue(rotated.needsReencryption(encryptedV1));
+        String encryptedV2 = rotated.reencrypt(encryptedV1);
+        assertTrue(encryptedV2.startsWith("v2:"));
+        assertEquals("1234567890123456", rotated.decrypt(encryptedV2));
+        assertThrows(EncryptionException.class, () -> encryptionUtil.decrypt(encryptedV2));
+    }
+    
+    @Test
+    void testToBinary_VersionedTextKeepsCiphertextAndLegacyIsReencrypted() throws Exception {
+        String versioned = encryptionUtil.encrypt("1234567890123456");
+        byte[] binary = encryptionUtil.toBinary(versioned);
+        
+        assertEquals(1, binary[0]);
+        assertArrayEquals(Base64.getDecoder().decode(versioned.substring("v1:".length())),
+                Arrays.copyOfRange(binary, 1, binary.length));
+        assertEquals("1234567890123456", new String(encryptionUtil.decrypt(binary), StandardCharsets.UTF_8));
+        
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(
+                MessageDigest.getInstance("SHA-256").digest(testSecret.getBytes(StandardCharsets.UTF_8)), "AES"));
+        String legacy = Base64.getEncoder().encodeToString(
+                cipher.doFinal("1234567890123456".getBytes(StandardCharsets.UTF_8)));
+        byte[] converted = encryptionUtil.toBinary(legacy);
+        
+        assertFalse(encryptionUtil.needsReencryption(converted));
+        assertEquals("1234567890123456", new String(encryptionUtil.decrypt(converted), StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    void testKeyRotation_BinaryCiphertextIsReencrypted() {
+        byte[] encryptedV1 = encryptionUtil.encrypt("1234567890123456".getBytes(StandardCharsets.UTF_8));
+        
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setSecret(testSecret);
+        properties.setKeyRing(Map.of(1, testSecret, 2, "rotated-secret-key-2025-minimum-32-characters"));
+        properties.setActiveKeyVersion(2);
+        EncryptionUtil rotated = new EncryptionUtil(properties);
+        
+        assertTrue(rotated.needsReencryption(encryptedV1));
+        byte[] encryptedV2 = rotated.reencrypt(encryptedV1);
+        assertEquals(2, encryptedV2[0]);
+        assertFalse(rotated.needsReencryption(encryptedV2));
+        assertEquals("1234567890123456", new String(rotated.decrypt(encryptedV2), StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    void testDecrypt_TamperedCiphertextFailsAuthentication() {
+        byte[] encrypted = encryptionUtil.encrypt("1234567890123456".getBytes(StandardCharsets.UTF_8));
+        encrypted[encrypted.length - 1] ^= 1;
+        
+        assertThrows(EncryptionException.class, () -> encryptionUtil.decrypt(encrypted));
+    }
 }
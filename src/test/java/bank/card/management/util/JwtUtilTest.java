@@ -1,6 +1,7 @@
 package bank.card.management.util;
 
 import bank.card.management.exception.JwtTokenException;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,6 +31,7 @@ class JwtUtilTest {
     void setUp() {
         ReflectionTestUtils.setField(jwtUtil, "secret", secret);
         ReflectionTestUtils.setField(jwtUtil, "expiration", expiration);
+        jwtUtil.init();
         
         userDetails = org.springframework.security.core.userdetails.User.builder()
                 .username("testuser")
@@ -113,6 +115,27 @@ class JwtUtilTest {
                   exception.getMessage().contains("JWT token has expired"));
     }
     
+    @Test
+    void testParseToken_ReturnsClaimsForValidation() {
+        String token = jwtUtil.generateToken(userDetails, 42L);
+        Claims claims = jwtUtil.parseToken(token);
+        
+        assertEquals("testuser", claims.getSubject());
+        assertEquals(42L, claims.get(JwtConstants.USER_ID_CLAIM, Long.class));
+        assertTrue(jwtUtil.validateClaims(claims, userDetails));
+    }
+    
+    @Test
+    void testParseToken_TamperedSignature() {
+        String token = jwtUtil.generateToken(userDetails);
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char first = token.charAt(signatureStart);
+        String tampered = token.substring(0, signatureStart) + (first == 'A' ? 'B' : 'A')
+                + token.substring(signatureStart + 1);
+        
+        assertThrows(JwtTokenException.class, () -> jwtUtil.parseToken(tampered));
+    }
+    
     @Test
     void testExtractUsername_InvalidToken() {
         String invalidToken = "invalid.token.here";